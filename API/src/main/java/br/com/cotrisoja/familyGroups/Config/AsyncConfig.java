@@ -1,14 +1,21 @@
 package br.com.cotrisoja.familyGroups.Config;
 
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
-public class AsyncConfig {
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Value("${api.streaming.timeout-ms:600000}")
+    private long streamingTimeout;
 
     @Bean(name = "fileUploadExecutor")
     public Executor fileUploadExecutor() {
@@ -20,4 +27,46 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    @Bean(name = "assetImportExecutor")
+    public Executor assetImportExecutor(@Value("${import.asset-workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(workers, 1));
+        executor.setMaxPoolSize(Math.max(workers, 1));
+        executor.setQueueCapacity(Math.max(workers, 1) * 2);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("AssetImport-");
+        executor.initialize();
+        return executor;
+    }
+
+    // uma reconstrução do índice de busca por vez; pedidos durante uma reconstrução são agrupados
+    @Bean(name = "searchIndexExecutor")
+    public Executor searchIndexExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(2);
+        executor.setThreadNamePrefix("SearchIndex-");
+        executor.initialize();
+        return executor;
+    }
+
+    // respostas em streaming (exportações): cada download ocupa uma thread enquanto escreve
+    @Bean(name = "streamingExecutor")
+    public ThreadPoolTaskExecutor streamingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("Streaming-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor());
+        configurer.setDefaultTimeout(streamingTimeout);
+    }
+}
@@ -6,9 +6,11 @@ import br.com.cotrisoja.familyGroups.Entity.Branch;
 import br.com.cotrisoja.familyGroups.Exception.BadRequestException;
 import br.com.cotrisoja.familyGroups.Repository.BranchRepository;
 import br.com.cotrisoja.familyGroups.Service.BranchService;
+import br.com.cotrisoja.familyGroups.Service.DataVersionService.Aggregate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -22,6 +24,7 @@ public class BranchController {
 
     private final BranchRepository branchRepository;
     private final BranchService branchService;
+    private final ConditionalGet conditionalGet;
 
     @PostMapping
     public ResponseEntity<?> create(@RequestBody BranchRequestDTO dto) {
@@ -49,18 +52,22 @@ public class BranchController {
     @GetMapping
     public ResponseEntity<?> getAll(@RequestParam(required = false) Integer page,
                                     @RequestParam(required = false) Integer size,
-                                    @RequestParam(required = false) String search) {
+                                    @RequestParam(required = false) String search,
+                                    ServletWebRequest request) {
+        ResponseEntity.BodyBuilder ok = conditionalGet.ok(request, "branches", Aggregate.BRANCHES);
+        if (ok == null) return null;
+
         if (search != null && !search.isBlank()) {
-            return ResponseEntity.ok(branchRepository.findByValue(search)
+            return ok.body(branchRepository.findByValue(search)
                     .stream()
                     .map(BranchResponseDTO::from)
                     .toList());
         } else {
             if (page != null && size != null) {
                 Pageable pageable = PageRequest.of(page, size);
-                return ResponseEntity.ok(branchRepository.findAll(pageable));
+                return ok.body(branchRepository.findAll(pageable));
             } else {
-                return ResponseEntity.ok(branchRepository.findAll());
+                return ok.body(branchRepository.findAll());
             }
         }
 
@@ -0,0 +1,35 @@
+package br.com.cotrisoja.familyGroups.Controller;
+
+import br.com.cotrisoja.familyGroups.Service.DataVersionService;
+import br.com.cotrisoja.familyGroups.Service.DataVersionService.Aggregate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * GET condicional das listagens: o If-None-Match é comparado com o ETag atual antes de qualquer
+ * consulta. Quando a versão do cliente ainda vale, a resposta já é um 304 sem corpo e ok devolve
+ * null, que o controller repassa.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalGet {
+
+    // o navegador guarda a resposta, mas confirma a versão a cada uso; sem isso o Spring Security
+    // envia no-store e o cliente nunca chega a mandar o If-None-Match
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final DataVersionService dataVersionService;
+
+    public ResponseEntity.BodyBuilder ok(ServletWebRequest request, String representation, Aggregate... aggregates) {
+        String etag = dataVersionService.etag(representation, aggregates);
+        if (request.checkNotModified(etag)) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE);
+    }
+}
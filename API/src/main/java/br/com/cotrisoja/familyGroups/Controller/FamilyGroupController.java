@@ -4,22 +4,46 @@ import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.CultivationResponseDTO;
 import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupMembersResponseDTO;
 import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupRequestDTO;
 import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupResponseDTO;
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupSuggestionDTO;
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.MembershipBatchResponseDTO;
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.MembershipOperationDTO;
 import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerResponseDTO;
+import br.com.cotrisoja.familyGroups.DTO.Page.CursorPageDTO;
+import br.com.cotrisoja.familyGroups.DTO.Page.ScrollCursor;
 import br.com.cotrisoja.familyGroups.Entity.FamilyGroup;
 import br.com.cotrisoja.familyGroups.Entity.Farmer;
 import br.com.cotrisoja.familyGroups.Entity.User;
+import br.com.cotrisoja.familyGroups.Exception.BadRequestException;
 import br.com.cotrisoja.familyGroups.Repository.FarmerRepository;
 import br.com.cotrisoja.familyGroups.Repository.UserRepository;
+import br.com.cotrisoja.familyGroups.Service.DataVersionService.Aggregate;
+import br.com.cotrisoja.familyGroups.Service.Export.CultivationExportService;
+import br.com.cotrisoja.familyGroups.Service.FamilyGroupMembershipService;
 import br.com.cotrisoja.familyGroups.Service.FamilyGroupService;
+import br.com.cotrisoja.familyGroups.Service.Search.TypeAheadIndex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 
 @RestController
@@ -27,15 +51,50 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class FamilyGroupController {
 
+    // paginação por cursor: só pelo id do grupo
+    private static final Set<String> CURSOR_SORTS = Set.of("id");
+    private static final Sort CURSOR_DEFAULT_SORT = Sort.by("id");
+
+    private static final String VIEW_FULL = "full";
+    private static final String VIEW_SUMMARY = "summary";
+
+    // grupos e painéis mostram técnicos e carteiras junto com os membros
+    private static final Aggregate[] FAMILY_GROUP_DATA = {Aggregate.FAMILY_GROUPS, Aggregate.USERS, Aggregate.BRANCHES};
+
     private final FamilyGroupService familyGroupService;
+    private final FamilyGroupMembershipService familyGroupMembershipService;
     private final UserRepository userRepository;
     private final FarmerRepository farmerRepository;
+    private final TypeAheadIndex typeAheadIndex;
+    private final ObjectMapper objectMapper;
+    private final CultivationExportService cultivationExportService;
+    private final ConditionalGet conditionalGet;
 
+    // view=summary: só id, principal (matrícula e nome) e número de membros, lidos numa única consulta
     @GetMapping
     public ResponseEntity<?> getAll(
             @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(defaultValue = VIEW_FULL) String view,
             Pageable pageable
     ) {
+        if (VIEW_SUMMARY.equalsIgnoreCase(view)) {
+            return getSummaries(search, cursor, includeTotal, pageable);
+        }
+        if (!VIEW_FULL.equalsIgnoreCase(view)) {
+            throw new BadRequestException("view deve ser '" + VIEW_FULL + "' ou '" + VIEW_SUMMARY + "'.");
+        }
+
+        if (cursor != null) {
+            ScrollCursor position = ScrollCursor.parse(cursor, pageable.getSort(), CURSOR_DEFAULT_SORT, CURSOR_SORTS);
+            Long total = includeTotal ? familyGroupService.count(search) : null;
+
+            return ResponseEntity.ok(CursorPageDTO.of(
+                    familyGroupService.scroll(search, position, pageable.getPageSize()),
+                    position, FamilyGroupResponseDTO::fromEntity, total));
+        }
+
         Page<FamilyGroup> familyGroups;
 
         if (search != null && !search.isBlank()) {
@@ -48,18 +107,60 @@ public class FamilyGroupController {
         return ResponseEntity.ok(response);
     }
 
+    private ResponseEntity<?> getSummaries(String search, String cursor, boolean includeTotal, Pageable pageable) {
+        if (cursor != null) {
+            ScrollCursor position = ScrollCursor.parse(cursor, pageable.getSort(), CURSOR_DEFAULT_SORT, CURSOR_SORTS);
+            Long total = includeTotal ? familyGroupService.count(search) : null;
+
+            return ResponseEntity.ok(CursorPageDTO.of(
+                    familyGroupService.scrollSummaries(search, position, pageable.getPageSize()),
+                    position, Function.identity(), total));
+        }
+
+        return ResponseEntity.ok(familyGroupService.findSummaries(search, pageable));
+    }
+
+    // busca instantânea, respondida da memória: nome ou matrícula do principal, ou id do grupo
+    @GetMapping("/suggest")
+    public ResponseEntity<List<FamilyGroupSuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(typeAheadIndex.suggestFamilyGroups(q, Math.clamp(limit, 1, 50)));
+    }
+
+    // mesmo array JSON de antes, escrito à medida que os grupos são lidos
     @GetMapping("/all")
-    public ResponseEntity<?> getAllWithoutPagination() {
-        List<FamilyGroup> familyGroups = familyGroupService.findAll();
-        return ResponseEntity.ok(familyGroups.stream().map(FamilyGroupResponseDTO::fromEntity).toList());
+    public ResponseEntity<StreamingResponseBody> getAllWithoutPagination(ServletWebRequest request) {
+        ResponseEntity.BodyBuilder ok = conditionalGet.ok(request, "family-groups", FAMILY_GROUP_DATA);
+        if (ok == null) return null;
+
+        return ok
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> writeFamilyGroups(out, false));
+    }
+
+    // um grupo por linha (NDJSON), para quem processa o arquivo sem carregá-lo inteiro
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAllAsNdjson(ServletWebRequest request) {
+        ResponseEntity.BodyBuilder ok = conditionalGet.ok(request, "family-groups-ndjson", FAMILY_GROUP_DATA);
+        if (ok == null) return null;
+
+        return ok
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> writeFamilyGroups(out, true));
     }
 
     @GetMapping("/cultivation/{familyGroupId}")
     public ResponseEntity<?> getCultivation(
-            @PathVariable Long familyGroupId
+            @PathVariable Long familyGroupId,
+            ServletWebRequest request
     ) {
+        ResponseEntity.BodyBuilder ok = conditionalGet.ok(request, "cultivation", FAMILY_GROUP_DATA);
+        if (ok == null) return null;
+
         CultivationResponseDTO dto = familyGroupService.getCultivation(familyGroupId);
-        return ResponseEntity.ok(dto);
+        return ok.body(dto);
     }
 
     @GetMapping("/by-technician/{userId}")
@@ -118,7 +219,7 @@ public class FamilyGroupController {
             }
         }
 
-        familyGroupService.updateCultivations(familyGroup, cultivationResponseDTO);
+        familyGroupService.updateCultivations(familyGroupId, cultivationResponseDTO);
         return ResponseEntity.ok("Cultivo atualizado com sucesso.");
     }
 
@@ -143,6 +244,14 @@ public class FamilyGroupController {
         return ResponseEntity.ok("Membro removido do grupo familiar");
     }
 
+    // várias inclusões, remoções e trocas de principal numa única transação, aplicadas na ordem
+    @PutMapping("/members")
+    public ResponseEntity<MembershipBatchResponseDTO> applyMembershipChanges(
+            @RequestBody List<MembershipOperationDTO> operations
+    ) {
+        return ResponseEntity.ok(familyGroupMembershipService.apply(operations));
+    }
+
     @PutMapping("/change-principal/{familyGroupId}/{principalId}")
     public ResponseEntity<?> changePrincipal(@PathVariable Long familyGroupId, @PathVariable String principalId) {
         familyGroupService.changePrincipal(familyGroupId, principalId);
@@ -192,28 +301,84 @@ public class FamilyGroupController {
 
     @GetMapping("/cultivation/branch/{branchId}")
     public ResponseEntity<?> findByBranch (
-            @PathVariable Long branchId
+            @PathVariable Long branchId,
+            ServletWebRequest request
     ) {
-        return ResponseEntity.ok(
+        ResponseEntity.BodyBuilder ok = conditionalGet.ok(request, "cultivations", FAMILY_GROUP_DATA);
+        if (ok == null) return null;
+
+        return ok.body(
                 familyGroupService.getCultivationsByBranch(branchId)
         );
     }
 
+    // CSV dos cultivos com áreas total e livre; sem filtros, todos os grupos da cooperativa
+    @GetMapping("/cultivation/export")
+    public ResponseEntity<StreamingResponseBody> exportCultivations(
+            @RequestParam(required = false) Long branchId,
+            @RequestParam(required = false) Long userId
+    ) {
+        cultivationExportService.validate(branchId, userId);
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(cultivationExportService.filename(branchId, userId))
+                        .build().toString())
+                .body(out -> cultivationExportService.writeCsv(branchId, userId, out));
+    }
+
     @GetMapping("/cultivation/user/{userId}")
     public ResponseEntity<?> findByUser (
-            @PathVariable Long userId
+            @PathVariable Long userId,
+            ServletWebRequest request
     ) {
-        return ResponseEntity.ok(
+        ResponseEntity.BodyBuilder ok = conditionalGet.ok(request, "cultivations", FAMILY_GROUP_DATA);
+        if (ok == null) return null;
+
+        return ok.body(
                 familyGroupService.getCultivationsByUser(userId)
         );
     }
 
     @GetMapping("/free-area/{familyGroupId}")
     public ResponseEntity<?> getFreeArea(
-            @PathVariable Long familyGroupId
+            @PathVariable Long familyGroupId,
+            ServletWebRequest request
     ) {
-        return ResponseEntity.ok(
+        ResponseEntity.BodyBuilder ok = conditionalGet.ok(request, "free-area", FAMILY_GROUP_DATA);
+        if (ok == null) return null;
+
+        return ok.body(
                 familyGroupService.getFreeArea(familyGroupId)
         );
     }
-}
\ No newline at end of file
+
+    // o primeiro grupo é enviado assim que lido; depois, a cada bloco de 100
+    private void writeFamilyGroups(OutputStream out, boolean ndjson) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            if (ndjson) {
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+
+            int[] written = {0};
+            try {
+                familyGroupService.exportAll(familyGroup -> {
+                    try {
+                        generator.writeObject(familyGroup);
+                        if (ndjson) generator.writeRaw('\n');
+                        if (written[0]++ % 100 == 0) generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            if (!ndjson) generator.writeEndArray();
+        }
+    }
+}
@@ -3,15 +3,20 @@ package br.com.cotrisoja.familyGroups.Controller;
 import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerRequestDTO;
 import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerResponseCompleteDTO;
 import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerResponseDTO;
+import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerSuggestionDTO;
+import br.com.cotrisoja.familyGroups.DTO.Page.CursorPageDTO;
+import br.com.cotrisoja.familyGroups.DTO.Page.ScrollCursor;
 import br.com.cotrisoja.familyGroups.Entity.AssetType;
 import br.com.cotrisoja.familyGroups.Entity.Farmer;
 import br.com.cotrisoja.familyGroups.Entity.Type;
 import br.com.cotrisoja.familyGroups.Entity.User;
+import br.com.cotrisoja.familyGroups.Enum.FarmerViewEnum;
 import br.com.cotrisoja.familyGroups.Repository.AssetTypeRepository;
 import br.com.cotrisoja.familyGroups.Repository.BranchRepository;
 import br.com.cotrisoja.familyGroups.Repository.TypeRepository;
 import br.com.cotrisoja.familyGroups.Repository.UserRepository;
 import br.com.cotrisoja.familyGroups.Service.FarmerService;
+import br.com.cotrisoja.familyGroups.Service.Search.TypeAheadIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -22,7 +27,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.JpaSort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -31,6 +38,7 @@ import org.springframework.data.domain.Pageable;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Tag(name = "Produtores", description = "Endpoints para gerenciamento de produtores")
@@ -39,10 +47,15 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FarmerController {
 
+    // paginação por cursor: por matrícula ou por (nome, matrícula)
+    private static final Set<String> CURSOR_SORTS = Set.of("registrationNumber", "name");
+    private static final Sort CURSOR_DEFAULT_SORT = Sort.by("registrationNumber");
+
     private final FarmerService farmerService;
     private final UserRepository userRepository;
     private final BranchRepository branchRepository;
     private final TypeRepository typeRepository;
+    private final TypeAheadIndex typeAheadIndex;
 
     @PostMapping
     public ResponseEntity<?> create(@RequestBody FarmerRequestDTO farmerRequestDTO) {
@@ -55,8 +68,26 @@ public class FarmerController {
     public ResponseEntity<?> findAll(
             @RequestParam(required = false) String value,
             @RequestParam(required = false) Long typeId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(defaultValue = "full") String view,
             Pageable pageable
     ) {
+        if (typeId != null && typeId > Integer.MAX_VALUE) {
+            return ResponseEntity.badRequest().body("ID fora do intervalo válido.");
+        }
+
+        FarmerViewEnum farmerView = FarmerViewEnum.parse(view);
+        if (farmerView != FarmerViewEnum.FULL) {
+            return projected(farmerView.projection(), farmerService.filter(value, typeId), pageable, cursor, includeTotal);
+        }
+
+        if (cursor != null) {
+            ScrollCursor position = ScrollCursor.parse(cursor, pageable.getSort(), CURSOR_DEFAULT_SORT, CURSOR_SORTS);
+            return ResponseEntity.ok(scroll(farmerService.filter(value, typeId), position,
+                    pageable.getPageSize(), includeTotal, FarmerResponseCompleteDTO::fromEntity));
+        }
+
         Page<Farmer> farmers;
 
         if (value != null && !value.isBlank() && typeId != null) {
@@ -64,10 +95,6 @@ public class FarmerController {
         } else if (value != null && !value.isBlank() && typeId == null) {
             farmers = farmerService.findByValue(value, pageable);
         } else if (typeId != null) {
-            if (typeId > Integer.MAX_VALUE) {
-                return ResponseEntity.badRequest().body("ID fora do intervalo válido.");
-            }
-
             Optional<Type> type = typeRepository.findById(typeId.intValue());
 
             if (type.isEmpty()) {
@@ -102,8 +129,15 @@ public class FarmerController {
     })
     @GetMapping("/{farmerRegistration}")
     public ResponseEntity<?> getFarmer(
-            @PathVariable String farmerRegistration
+            @PathVariable String farmerRegistration,
+            @RequestParam(defaultValue = "full") String view
     ) {
+        FarmerViewEnum farmerView = FarmerViewEnum.parse(view);
+        if (farmerView != FarmerViewEnum.FULL) {
+            return ResponseEntity.ok(farmerService.findById(farmerView.projection(), farmerRegistration)
+                    .orElseThrow(() -> new RuntimeException("Produtor não encontrado")));
+        }
+
         Farmer farmer = farmerService.findById(farmerRegistration)
                 .orElseThrow(() -> new RuntimeException("Produtor não encontrado"));
 
@@ -145,10 +179,16 @@ public class FarmerController {
             )
     })
     @GetMapping("/available")
-    public ResponseEntity<Page<FarmerResponseDTO>> findAvailableFarmers(
+    public ResponseEntity<?> findAvailableFarmers(
             @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "full") String view,
             Pageable pageable
     ) {
+        FarmerViewEnum farmerView = FarmerViewEnum.parse(view);
+        if (farmerView != FarmerViewEnum.FULL) {
+            return projected(farmerView.projection(), farmerService.availableFilter(search), pageable, null, false);
+        }
+
         Page<Farmer> farmers = null;
 
         if (search != null && !search.isEmpty()) {
@@ -161,6 +201,26 @@ public class FarmerController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Sugestões de produtores para busca instantânea",
+            description = """
+            Responde da memória, sem consultar o banco. Cada termo de `q` precisa iniciar uma palavra
+            do nome ou a matrícula; maiúsculas e acentos são ignorados. A matrícula exata vem primeiro,
+            depois os demais em ordem alfabética.
+            
+            `available=true` restringe aos produtores disponíveis para um grupo (ativos, não bloqueados
+            e sozinhos no grupo ou sem grupo); o campo `available` de cada sugestão traz a mesma regra.
+            """
+    )
+    @GetMapping("/suggest")
+    public ResponseEntity<List<FarmerSuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "false") boolean available,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(typeAheadIndex.suggestFarmers(q, available, Math.clamp(limit, 1, 50)));
+    }
+
     @Operation(
             summary = "Busca produtores por grupo familiar",
             description = "Retorna uma lista de produtores membros de um grupo familiar."
@@ -175,8 +235,14 @@ public class FarmerController {
     })
     @GetMapping("by-family-group/{familyGroupID}")
     public ResponseEntity<?> findByFamilyGroup(
-            @PathVariable Long familyGroupID
+            @PathVariable Long familyGroupID,
+            @RequestParam(defaultValue = "full") String view
     ) {
+        FarmerViewEnum farmerView = FarmerViewEnum.parse(view);
+        if (farmerView != FarmerViewEnum.FULL) {
+            return ResponseEntity.ok(farmerService.findByFamilyGroup(farmerView.projection(), familyGroupID));
+        }
+
         List<Farmer> farmers = farmerService.findByFamilyGroup(familyGroupID);
 
         List<FarmerResponseDTO> response = farmers.stream()
@@ -193,9 +259,13 @@ public class FarmerController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "registrationNumber,asc") String sort,
-            @RequestParam(required = false) String search
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(defaultValue = "full") String view
     ) {
-        Pageable pageable = PageRequest.of(page, size, buildSort(sort));
+        FarmerViewEnum farmerView = FarmerViewEnum.parse(view);
+        Pageable pageable = PageRequest.of(page, size, buildSort(sort, farmerView));
         Page<Farmer> farmersPage;
 
         if (userId != null) {
@@ -204,10 +274,28 @@ public class FarmerController {
                 return ResponseEntity.badRequest().body("Usuário não encontrado");
             }
 
+            if (farmerView != FarmerViewEnum.FULL) {
+                return projected(farmerView.projection(), farmerService.technicianFilter(technicianOpt.get(), typeId, search),
+                        pageable, cursor, includeTotal);
+            }
+
+            if (cursor != null) {
+                ScrollCursor position = ScrollCursor.parse(cursor, pageable.getSort(), CURSOR_DEFAULT_SORT, CURSOR_SORTS);
+                return ResponseEntity.ok(scroll(farmerService.technicianFilter(technicianOpt.get(), typeId, search),
+                        position, size, includeTotal, FarmerResponseDTO::fromEntity));
+            }
+
             farmersPage = (typeId == null)
                     ? farmerService.findByTechnician(technicianOpt.get(), search, pageable)
                     : farmerService.findByTechnicianAndType(technicianOpt.get(), typeId, search, pageable);
 
+        } else if (farmerView != FarmerViewEnum.FULL) {
+            return projected(farmerView.projection(), farmerService.technicianFilter(null, typeId, search),
+                    pageable, cursor, includeTotal);
+        } else if (cursor != null) {
+            ScrollCursor position = ScrollCursor.parse(cursor, pageable.getSort(), CURSOR_DEFAULT_SORT, CURSOR_SORTS);
+            return ResponseEntity.ok(scroll(farmerService.technicianFilter(null, typeId, search),
+                    position, size, includeTotal, FarmerResponseDTO::fromEntity));
         } else {
             farmersPage = (typeId == null)
                     ? farmerService.findWithoutTechnician(search, pageable)
@@ -224,14 +312,38 @@ public class FarmerController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "registrationNumber,asc") String sort,
-            @RequestParam(required = false) String search
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(defaultValue = "full") String view
     ) {
+        FarmerViewEnum farmerView = FarmerViewEnum.parse(view);
+
         return branchRepository.findById(branchId)
                 .<ResponseEntity<?>>map(branch -> {
-                    Pageable pageable = PageRequest.of(page, size, buildSort(sort));
+                    Pageable pageable = PageRequest.of(page, size, buildSort(sort, farmerView));
 
                     final String searchValue = (search != null && search.isBlank()) ? null : search;
 
+                    if (farmerView != FarmerViewEnum.FULL) {
+                        try {
+                            return projected(farmerView.projection(), farmerService.branchFilter(branch, typeId, searchValue),
+                                    pageable, cursor, includeTotal);
+                        } catch (IllegalArgumentException ex) {
+                            return ResponseEntity.badRequest().body(ex.getMessage());
+                        }
+                    }
+
+                    if (cursor != null) {
+                        ScrollCursor position = ScrollCursor.parse(cursor, pageable.getSort(), CURSOR_DEFAULT_SORT, CURSOR_SORTS);
+                        try {
+                            return ResponseEntity.ok(scroll(farmerService.branchFilter(branch, typeId, searchValue),
+                                    position, size, includeTotal, FarmerResponseDTO::fromEntity));
+                        } catch (IllegalArgumentException ex) {
+                            return ResponseEntity.badRequest().body(ex.getMessage());
+                        }
+                    }
+
                     Page<Farmer> farmersPage;
                     try {
                         farmersPage = (typeId == null)
@@ -259,12 +371,34 @@ public class FarmerController {
         return ResponseEntity.ok(FarmerResponseDTO.fromEntity(updatedFarmer));
     }
 
-    private Sort buildSort(String sortParam) {
+    // o total é opcional: é a única consulta da página cujo custo cresce com a base inteira
+    private <T> CursorPageDTO<T> scroll(Specification<Farmer> spec, ScrollCursor cursor, int size,
+                                        boolean includeTotal, Function<Farmer, T> mapper) {
+        Window<Farmer> window = farmerService.scroll(spec, cursor, size);
+        Long total = includeTotal ? farmerService.count(spec) : null;
+        return CursorPageDTO.of(window, cursor, mapper, total);
+    }
+
+    // view minimal ou summary: a consulta seleciona só as colunas da projeção, sem carregar entidades
+    private <T> ResponseEntity<?> projected(Class<T> projection, Specification<Farmer> spec, Pageable pageable,
+                                            String cursor, boolean includeTotal) {
+        if (cursor != null) {
+            ScrollCursor position = ScrollCursor.parse(cursor, pageable.getSort(), CURSOR_DEFAULT_SORT, CURSOR_SORTS);
+            Window<T> window = farmerService.scroll(projection, spec, position, pageable.getPageSize());
+            Long total = includeTotal ? farmerService.count(spec) : null;
+            return ResponseEntity.ok(CursorPageDTO.of(window, position, Function.identity(), total));
+        }
+
+        return ResponseEntity.ok(farmerService.findAll(projection, spec, pageable));
+    }
+
+    // as projeções ordenam por totalArea pelo nome; as entidades, pela expressão JPQL
+    private Sort buildSort(String sortParam, FarmerViewEnum view) {
         String[] s = sortParam.split(",");
         String field = s[0];
         Sort.Direction dir = s.length > 1 ? Sort.Direction.fromString(s[1]) : Sort.Direction.ASC;
 
-        if ("totalArea".equals(field)) {
+        if ("totalArea".equals(field) && view == FarmerViewEnum.FULL) {
             return JpaSort.unsafe(dir,
                     "COALESCE(ownedArea,0) + COALESCE(leasedArea,0)");
         }
@@ -1,6 +1,12 @@
 package br.com.cotrisoja.familyGroups.Controller;
 
+import br.com.cotrisoja.familyGroups.DTO.Import.ImportJobResponseDTO;
+import br.com.cotrisoja.familyGroups.DTO.Import.ImportPreviewDTO;
+import br.com.cotrisoja.familyGroups.Entity.ImportJob;
+import br.com.cotrisoja.familyGroups.Exception.NotFoundException;
 import br.com.cotrisoja.familyGroups.Service.FileService;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportPreview;
+import br.com.cotrisoja.familyGroups.Service.ImportJobService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -8,17 +14,18 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.Objects;
 
 @RestController
 @RequestMapping("/upload")
 @RequiredArgsConstructor
 public class UploadController {
 
+    private final ImportJobService importJobService;
     private final FileService fileService;
 
     @PostMapping
-    public ResponseEntity<?> upload(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> upload(@RequestParam("file") MultipartFile file,
+                                    @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
         if (file.isEmpty() || !file.getOriginalFilename().endsWith(".csv")) {
             return ResponseEntity.badRequest().body("Arquivo inválido. Envie um arquivo .csv.");
         }
@@ -32,10 +39,23 @@ public class UploadController {
         }
 
         try {
-            fileService.uploadFile(file);
-            return ResponseEntity.ok().body("Arquivo processado.");
+            if (dryRun) {
+                ImportPreview preview = fileService.preview(file);
+                return ResponseEntity.ok(ImportPreviewDTO.fromPreview(file.getOriginalFilename(), preview));
+            }
+
+            ImportJob job = importJobService.submit(file);
+            return ResponseEntity.accepted().body(ImportJobResponseDTO.fromEntity(job));
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erro ao ler o arquivo.");
         }
     }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ImportJobResponseDTO> getJob(@PathVariable Long id) {
+        ImportJob job = importJobService.findById(id)
+                .orElseThrow(() -> new NotFoundException("ImportJob", id));
+
+        return ResponseEntity.ok(ImportJobResponseDTO.fromEntity(job));
+    }
 }
@@ -4,12 +4,14 @@ import br.com.cotrisoja.familyGroups.DTO.User.UserRequestDTO;
 import br.com.cotrisoja.familyGroups.DTO.User.UserResponseDTO;
 import br.com.cotrisoja.familyGroups.Entity.User;
 import br.com.cotrisoja.familyGroups.Repository.UserRepository;
+import br.com.cotrisoja.familyGroups.Service.DataVersionService.Aggregate;
 import br.com.cotrisoja.familyGroups.Service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 
@@ -21,6 +23,7 @@ public class UserController {
 
     private final UserService userService;
     private final UserRepository userRepository;
+    private final ConditionalGet conditionalGet;
 
     @GetMapping
     public ResponseEntity<?> getAllPageable(Pageable pageable) {
@@ -32,14 +35,18 @@ public class UserController {
     }
 
     @GetMapping("/all")
-    public ResponseEntity<?> getAll() {
+    public ResponseEntity<?> getAll(ServletWebRequest request) {
+        // cada usuário traz a sua carteira
+        ResponseEntity.BodyBuilder ok = conditionalGet.ok(request, "users", Aggregate.USERS, Aggregate.BRANCHES);
+        if (ok == null) return null;
+
         List<User> users = userRepository.findAll();
 
         List<UserResponseDTO> usersDTOPage = users.stream()
                 .map(UserResponseDTO::fromEntity)
                 .toList();
 
-        return ResponseEntity.ok(usersDTOPage);
+        return ok.body(usersDTOPage);
     }
 
     @PutMapping("/{userId}")
@@ -8,7 +8,9 @@ public record CultivationResponseDTO(
         Double cornSilageArea,       Double cornSilageAreaParticipation,
         Double grainCornArea,        Double grainCornAreaParticipation,
         Double beanArea,             Double beanAreaParticipation,
-        Double soybeanArea,          Double soybeanAreaParticipation
+        Double soybeanArea,          Double soybeanAreaParticipation,
+        // versão do grupo lida pelo cliente; opcional na edição
+        Long version
 ) {
 
     public static CultivationResponseDTO fromEntity(FamilyGroup fg) {
@@ -18,7 +20,8 @@ public record CultivationResponseDTO(
                 defaultDouble(fg.getCornSilageArea()),    defaultDouble(fg.getCornSilageAreaParticipation()),
                 defaultDouble(fg.getGrainCornArea()),     defaultDouble(fg.getGrainCornAreaParticipation()),
                 defaultDouble(fg.getBeanArea()),          defaultDouble(fg.getBeanAreaParticipation()),
-                defaultDouble(fg.getSoybeanArea()),       defaultDouble(fg.getSoybeanAreaParticipation())
+                defaultDouble(fg.getSoybeanArea()),       defaultDouble(fg.getSoybeanAreaParticipation()),
+                fg.getVersion()
         );
     }
 
@@ -0,0 +1,7 @@
+package br.com.cotrisoja.familyGroups.DTO.FamilyGroup;
+
+public record FamilyGroupSuggestionDTO(
+        Long id,
+        String principalRegistrationNumber,
+        String principalName
+) {}
@@ -0,0 +1,9 @@
+package br.com.cotrisoja.familyGroups.DTO.FamilyGroup;
+
+// linha da listagem de grupos (view=summary), montada direto pela consulta
+public record FamilyGroupSummaryDTO(
+        Long id,
+        String principalRegistrationNumber,
+        String principalName,
+        Integer memberCount
+) {}
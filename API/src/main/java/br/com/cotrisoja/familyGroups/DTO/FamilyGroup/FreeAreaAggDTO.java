@@ -1,3 +0,0 @@
-package br.com.cotrisoja.familyGroups.DTO.FamilyGroup;
-
-public record FreeAreaAggDTO(Long familyGroupId, Double freeArea) {}
@@ -0,0 +1,9 @@
+package br.com.cotrisoja.familyGroups.DTO.FamilyGroup;
+
+import java.util.List;
+
+// grupos alterados pelo lote, incluindo os grupos individuais criados para os removidos
+public record MembershipBatchResponseDTO(
+        int operations,
+        List<Long> familyGroupIds
+) {}
@@ -0,0 +1,9 @@
+package br.com.cotrisoja.familyGroups.DTO.FamilyGroup;
+
+import br.com.cotrisoja.familyGroups.Enum.MembershipOperationEnum;
+
+public record MembershipOperationDTO(
+        MembershipOperationEnum type,
+        Long familyGroupId,
+        String farmerId
+) {}
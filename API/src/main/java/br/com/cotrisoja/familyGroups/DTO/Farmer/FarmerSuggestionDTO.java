@@ -0,0 +1,9 @@
+package br.com.cotrisoja.familyGroups.DTO.Farmer;
+
+// available: ativo, não bloqueado e sozinho no grupo (ou sem grupo)
+public record FarmerSuggestionDTO(
+        String registrationNumber,
+        String name,
+        Long familyGroupId,
+        boolean available
+) {}
@@ -0,0 +1,17 @@
+package br.com.cotrisoja.familyGroups.DTO.Farmer;
+
+import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+
+// colunas do próprio produtor (view=summary); as associações vêm só pelo id, sem junções
+public record FarmerSummaryDTO(
+        String registrationNumber,
+        String name,
+        StatusEnum status,
+        Boolean blocked,
+        Double ownedArea,
+        Double leasedArea,
+        Long familyGroupId,
+        Integer typeId,
+        Long technicianId,
+        Long branchId
+) {}
@@ -0,0 +1,63 @@
+package br.com.cotrisoja.familyGroups.DTO.Import;
+
+import br.com.cotrisoja.familyGroups.Entity.ImportJob;
+import br.com.cotrisoja.familyGroups.Enum.ImportJobStatusEnum;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public record ImportJobResponseDTO(
+        Long id,
+        String filename,
+        ImportJobStatusEnum status,
+        int pass,
+        int passes,
+        long rowsTotal,
+        long rowsProcessed,
+        long rowsFailed,
+        Double rowsPerSecond,
+        Long etaSeconds,
+        LocalDateTime createdAt,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        String error
+) {
+    public static ImportJobResponseDTO fromEntity(ImportJob job) {
+        Double rowsPerSecond = null;
+        Long etaSeconds = null;
+
+        if (job.getStartedAt() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            double elapsed = Duration.between(job.getStartedAt(), end).toMillis() / 1000.0;
+
+            // cada passada percorre o arquivo inteiro; o trabalho total é linhas × passadas
+            int passes = Math.max(job.getPasses(), 1);
+            long done = Math.max(job.getPass() - 1, 0) * job.getRowsTotal() + job.getRowsProcessed();
+            long total = passes * job.getRowsTotal();
+
+            if (elapsed > 0 && done > 0) {
+                rowsPerSecond = done / elapsed;
+                etaSeconds = job.getStatus() == ImportJobStatusEnum.RUNNING
+                        ? Math.round(Math.max(total - done, 0) / rowsPerSecond)
+                        : 0L;
+            }
+        }
+
+        return new ImportJobResponseDTO(
+                job.getId(),
+                job.getFilename(),
+                job.getStatus(),
+                job.getPass(),
+                job.getPasses(),
+                job.getRowsTotal(),
+                job.getRowsProcessed(),
+                job.getRowsFailed(),
+                rowsPerSecond,
+                etaSeconds,
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.getError()
+        );
+    }
+}
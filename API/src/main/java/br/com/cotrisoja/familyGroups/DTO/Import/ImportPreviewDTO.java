@@ -0,0 +1,37 @@
+package br.com.cotrisoja.familyGroups.DTO.Import;
+
+import br.com.cotrisoja.familyGroups.Service.Import.ImportPreview;
+
+public record ImportPreviewDTO(
+        String filename,
+        long rowsProcessed,
+        long rowsFailed,
+        long farmersCreated,
+        long farmersUpdated,
+        long typeChanges,
+        long newlyDeceased,
+        long newlyBlocked,
+        long groupsCreated,
+        long groupsUpdated,
+        long membershipMoves,
+        long assetsInserted,
+        long assetsUpdated
+) {
+    public static ImportPreviewDTO fromPreview(String filename, ImportPreview preview) {
+        return new ImportPreviewDTO(
+                filename,
+                preview.getRowsProcessed(),
+                preview.getRowsFailed(),
+                preview.getFarmersCreated(),
+                preview.getFarmersUpdated(),
+                preview.getTypeChanges(),
+                preview.getNewlyDeceased(),
+                preview.getNewlyBlocked(),
+                preview.getGroupsCreated(),
+                preview.getGroupsUpdated(),
+                preview.getMembershipMoves(),
+                preview.getAssetsInserted(),
+                preview.getAssetsUpdated()
+        );
+    }
+}
@@ -0,0 +1,27 @@
+package br.com.cotrisoja.familyGroups.DTO.Page;
+
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.function.Function;
+
+// next nulo: última página; totalElements só é preenchido quando pedido
+public record CursorPageDTO<T>(
+        List<T> content,
+        int size,
+        String next,
+        Long totalElements
+) {
+    public static <E, T> CursorPageDTO<T> of(Window<E> window, ScrollCursor cursor, Function<E, T> mapper, Long total) {
+        String next = window.hasNext() && !window.isEmpty()
+                ? cursor.after(window.positionAt(window.size() - 1))
+                : null;
+
+        return new CursorPageDTO<>(
+                window.map(mapper).getContent(),
+                window.size(),
+                next,
+                total
+        );
+    }
+}
@@ -0,0 +1,92 @@
+package br.com.cotrisoja.familyGroups.DTO.Page;
+
+import br.com.cotrisoja.familyGroups.Exception.BadRequestException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Posição da paginação por cursor. O token entregue ao cliente é opaco: a ordenação e os
+ * valores da última linha da página, em JSON codificado em base64 para URL.
+ */
+public record ScrollCursor(Sort sort, Map<String, Object> keys) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Token vazio inicia a listagem com a ordenação pedida; os demais continuam com a ordenação
+     * gravada no próprio token. Só os campos em {@code sortable} são aceitos, incluindo a chave primária,
+     * que o Spring Data acrescenta ao fim da ordenação para desempatar.
+     */
+    public static ScrollCursor parse(String token, Sort requested, Sort fallback, Set<String> sortable) {
+        if (token == null || token.isBlank()) {
+            Sort sort = requested.isSorted() ? requested : fallback;
+            sort.forEach(order -> checkSortable(order.getProperty(), sortable));
+            return new ScrollCursor(sort, Map.of());
+        }
+
+        try {
+            JsonNode node = MAPPER.readTree(Base64.getUrlDecoder().decode(token));
+
+            List<Sort.Order> orders = new ArrayList<>();
+            for (JsonNode order : node.path("sort")) {
+                String property = order.get(0).asText();
+                checkSortable(property, sortable);
+                orders.add(new Sort.Order(Sort.Direction.fromString(order.get(1).asText()), property));
+            }
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            node.path("keys").fields().forEachRemaining(key -> {
+                checkSortable(key.getKey(), sortable);
+                keys.put(key.getKey(), key.getValue().isNumber() ? key.getValue().asLong() : key.getValue().asText());
+            });
+
+            if (orders.isEmpty() || keys.isEmpty()) {
+                throw new BadRequestException("Cursor inválido.");
+            }
+            return new ScrollCursor(Sort.by(orders), keys);
+        } catch (IOException | IllegalArgumentException | NullPointerException e) {
+            throw new BadRequestException("Cursor inválido.");
+        }
+    }
+
+    public ScrollPosition position() {
+        return keys.isEmpty() ? ScrollPosition.keyset() : ScrollPosition.forward(keys);
+    }
+
+    // cursor que continua logo após a posição informada, com a mesma ordenação
+    public String after(ScrollPosition position) {
+        ObjectNode node = MAPPER.createObjectNode();
+
+        ArrayNode orders = node.putArray("sort");
+        sort.forEach(order -> orders.addArray().add(order.getProperty()).add(order.getDirection().name()));
+
+        ObjectNode keys = node.putObject("keys");
+        ((KeysetScrollPosition) position).getKeys().forEach((property, value) -> {
+            if (value instanceof Number number) {
+                keys.put(property, number.longValue());
+            } else {
+                keys.put(property, String.valueOf(value));
+            }
+        });
+
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(node));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void checkSortable(String property, Set<String> sortable) {
+        if (!sortable.contains(property)) {
+            throw new BadRequestException("Ordenação por '" + property + "' não é suportada na paginação por cursor.");
+        }
+    }
+}
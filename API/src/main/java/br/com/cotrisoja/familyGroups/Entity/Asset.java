@@ -1,9 +1,12 @@
 package br.com.cotrisoja.familyGroups.Entity;
 
+import br.com.cotrisoja.familyGroups.Service.DataVersionListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+@EntityListeners(DataVersionListener.class)
 @Getter
 @Setter
 @IdClass(AssetId.class)
@@ -38,4 +41,10 @@ public class Asset {
 	@JoinColumn(name = "farmer_leased_id")
 	private Farmer leasedTo;
 
+	// incrementada a cada alteração, inclusive pela importação
+	@Version
+	@ColumnDefault("0")
+	@Column(nullable = false)
+	private Long version;
+
 }
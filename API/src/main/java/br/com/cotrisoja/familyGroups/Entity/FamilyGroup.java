@@ -1,14 +1,19 @@
 package br.com.cotrisoja.familyGroups.Entity;
 
+import br.com.cotrisoja.familyGroups.Service.DataVersionListener;
+import br.com.cotrisoja.familyGroups.Service.Search.TypeAheadListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners({TypeAheadListener.class, DataVersionListener.class})
+@Table(indexes = @Index(name = "idx_family_group_member_count", columnList = "member_count"))
 @Setter
 @Getter
 public class FamilyGroup {
@@ -27,6 +32,17 @@ public class FamilyGroup {
 
     private String registry;
 
+    // mantido pelo banco (FamilyGroupRepository.recountMembers e a importação), nunca gravado pelo JPA
+    @ColumnDefault("0")
+    @Column(name = "member_count", insertable = false, updatable = false)
+    private Integer memberCount;
+
+    // controle de concorrência otimista; gravações por JDBC também incrementam
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     private Double canolaArea = 0.0;
     private Double canolaAreaParticipation = 0.0;
 
@@ -59,6 +75,12 @@ public class FamilyGroup {
         principal.setFamilyGroup(this);
     }
 
+    // no máximo um membro; um grupo criado nesta sessão ainda não tem a contagem carregada
+    public boolean isSolo() {
+        if (memberCount != null) return memberCount < 2;
+        return members == null || members.size() < 2;
+    }
+
     private float getTotalAvailableArea() {
         return members != null
                 ? (float) members.stream()
@@ -0,0 +1,29 @@
+package br.com.cotrisoja.familyGroups.Entity;
+
+import br.com.cotrisoja.familyGroups.Service.DataVersionListener;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+// áreas do grupo pré-calculadas a partir dos bens dos membros; mantida pelo FamilyGroupAreaService
+@Entity
+@EntityListeners(DataVersionListener.class)
+@Getter
+@Setter
+@Table(name = "family_group_area")
+public class FamilyGroupArea {
+    @Id
+    @Column(name = "family_group_id", nullable = false)
+    private Long familyGroupId;
+
+    // terras de cultivo (tipo 1): área cultivável e área total
+    private double freeArea;
+    private double totalArea;
+
+    // área cultivável somando todos os tipos de bem
+    private double cultivableArea;
+}
@@ -1,17 +1,42 @@
 package br.com.cotrisoja.familyGroups.Entity;
 
 import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+import br.com.cotrisoja.familyGroups.Service.DataVersionListener;
+import br.com.cotrisoja.familyGroups.Service.Search.TypeAheadListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 @Entity
+@EntityListeners({TypeAheadListener.class, DataVersionListener.class})
 @Getter
 @Setter
+@Table(indexes = {
+        // paginação por cursor ordenada por nome
+        @Index(name = "idx_farmer_name_registration", columnList = "name, registration_number"),
+        // disponibilidade: status, bloqueio e o grupo, cuja contagem de membros está em family_group
+        @Index(name = "idx_farmer_availability", columnList = "status, blocked, family_group_id")
+})
+// tudo o que as DTOs de listagem leem de cada produtor, carregado junto com a página
+@NamedEntityGraph(name = Farmer.PAGE_GRAPH, attributeNodes = {
+        @NamedAttributeNode("technician"),
+        @NamedAttributeNode("type"),
+        @NamedAttributeNode("branch"),
+        @NamedAttributeNode(value = "familyGroup", subgraph = "familyGroup")
+}, subgraphs = @NamedSubgraph(name = "familyGroup", attributeNodes = @NamedAttributeNode("principal")))
 public class Farmer {
+    public static final String PAGE_GRAPH = "Farmer.page";
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
     @Id
     @Column(name = "registration_number", nullable = false, unique = true)
     private String registrationNumber;
@@ -19,6 +44,10 @@ public class Farmer {
     @Column(nullable = false)
     private String name;
 
+    // nome normalizado para a busca (ver normalizeSearch); indexado por trigramas no PostgreSQL
+    @Column(name = "search_name")
+    private String searchName;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private StatusEnum status;
@@ -50,9 +79,30 @@ public class Farmer {
 
     private Boolean blocked = false;
 
+    // edições concorrentes do mesmo produtor: a segunda falha em vez de sobrescrever a primeira
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    private void updateSearchName() {
+        this.searchName = normalizeSearch(this.name);
+    }
+
+    // minúsculas, sem acentos e com um único espaço entre as palavras: "JOÃO  Mülle" -> "joao mulle"
+    public static String normalizeSearch(String value) {
+        if (value == null) return null;
+
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return SPACES.matcher(MARKS.matcher(decomposed).replaceAll("")).replaceAll(" ")
+                .trim()
+                .toLowerCase(Locale.ROOT);
+    }
+
     public boolean isValid() {
         return this.status == StatusEnum.ACTIVE && !this.blocked &&
-                (this.familyGroup == null ||
-                        (this.familyGroup.getMembers() != null && this.familyGroup.getMembers().size() < 2));
+                (this.familyGroup == null || this.familyGroup.isSolo());
     }
 }
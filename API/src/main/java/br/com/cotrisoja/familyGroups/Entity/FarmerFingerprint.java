@@ -0,0 +1,22 @@
+package br.com.cotrisoja.familyGroups.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+// última linha do farmer_update.csv aplicada a cada produtor (tipo, óbito e bloqueio)
+@Entity
+@Getter
+@Setter
+@Table(name = "farmer_fingerprint")
+public class FarmerFingerprint {
+    @Id
+    @Column(name = "registration_number", nullable = false)
+    private String registrationNumber;
+
+    @Column(nullable = false)
+    private long fingerprint;
+}
@@ -0,0 +1,51 @@
+package br.com.cotrisoja.familyGroups.Entity;
+
+import br.com.cotrisoja.familyGroups.Enum.ImportJobStatusEnum;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@Table(name = "import_jobs")
+public class ImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String filename;
+
+    @Column(length = 64)
+    private String fileHash;
+
+    // igual a fileHash enquanto o job está na fila ou rodando, nulo depois: a restrição única impede
+    // que dois envios simultâneos do mesmo arquivo importem ao mesmo tempo
+    @Column(length = 64, unique = true)
+    private String activeHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportJobStatusEnum status;
+
+    private int pass;
+    private int passes;
+
+    private long rowsTotal;
+    private long rowsProcessed;
+    private long rowsFailed;
+
+    // última linha confirmada e a passada a que ela pertence
+    private Integer checkpointPass;
+    private Long checkpointRow;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    @Column(length = 1000)
+    private String error;
+}
@@ -1,13 +1,20 @@
 package br.com.cotrisoja.familyGroups.Entity;
 
+import br.com.cotrisoja.familyGroups.Service.DataVersionListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Set;
 
 @Entity
+@EntityListeners(DataVersionListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @Table(name = "users")
@@ -26,6 +33,7 @@ public class User {
     private String password;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "role")
     private Set<String> roles;
@@ -34,4 +42,8 @@ public class User {
     private Branch branch;
     
     private Boolean status;
+
+    // tokens emitidos antes deste instante são recusados; ver TokenRevocationService
+    @Column(name = "tokens_valid_after")
+    private Instant tokensValidAfter;
 }
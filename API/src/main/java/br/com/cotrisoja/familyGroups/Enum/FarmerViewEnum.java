@@ -0,0 +1,32 @@
+package br.com.cotrisoja.familyGroups.Enum;
+
+import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerResponseMinimalDTO;
+import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerSummaryDTO;
+import br.com.cotrisoja.familyGroups.Exception.BadRequestException;
+
+import java.util.Locale;
+
+// parâmetro view das listagens de produtores; FULL mantém as DTOs completas, as demais são projeções
+public enum FarmerViewEnum {
+    MINIMAL(FarmerResponseMinimalDTO.class),
+    SUMMARY(FarmerSummaryDTO.class),
+    FULL(null);
+
+    private final Class<?> projection;
+
+    FarmerViewEnum(Class<?> projection) {
+        this.projection = projection;
+    }
+
+    public Class<?> projection() {
+        return projection;
+    }
+
+    public static FarmerViewEnum parse(String view) {
+        try {
+            return valueOf(view.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("view deve ser 'minimal', 'summary' ou 'full'.");
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.cotrisoja.familyGroups.Enum;
+
+public enum ImportJobStatusEnum {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
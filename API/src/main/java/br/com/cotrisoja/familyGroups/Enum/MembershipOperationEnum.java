@@ -0,0 +1,7 @@
+package br.com.cotrisoja.familyGroups.Enum;
+
+public enum MembershipOperationEnum {
+    ADD,
+    REMOVE,
+    CHANGE_PRINCIPAL
+}
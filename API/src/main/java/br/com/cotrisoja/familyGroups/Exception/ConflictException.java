@@ -0,0 +1,31 @@
+package br.com.cotrisoja.familyGroups.Exception;
+
+import lombok.Getter;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+// o registro foi alterado por outra operação; o cliente deve recarregar e repetir
+@Getter
+public class ConflictException extends RuntimeException {
+    private final String entity;
+    private final Object id;
+
+    public ConflictException(String message, String entity, Object id) {
+        super(message);
+        this.entity = entity;
+        this.id = id;
+    }
+
+    // entidade e id vêm da falha do Hibernate; a de gravações por JDBC pode não ter nenhum dos dois
+    public static ConflictException of(OptimisticLockingFailureException e) {
+        String entity = null;
+        Object id = null;
+        if (e instanceof ObjectOptimisticLockingFailureException lockFailure) {
+            String className = lockFailure.getPersistentClassName();
+            entity = className != null ? className.substring(className.lastIndexOf('.') + 1) : null;
+            id = lockFailure.getIdentifier();
+        }
+        return new ConflictException(
+                "O registro foi alterado por outra operação. Recarregue os dados e tente novamente.", entity, id);
+    }
+}
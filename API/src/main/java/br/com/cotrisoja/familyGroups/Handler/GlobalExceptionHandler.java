@@ -1,12 +1,15 @@
 package br.com.cotrisoja.familyGroups.Handler;
 
 import br.com.cotrisoja.familyGroups.Exception.BadRequestException;
+import br.com.cotrisoja.familyGroups.Exception.ConflictException;
 import br.com.cotrisoja.familyGroups.Exception.NotFoundException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestControllerAdvice
@@ -26,6 +29,25 @@ public class GlobalExceptionHandler {
                 .body(Map.of("error", ex.getMessage()));
     }
 
+    // entity e id só aparecem quando se sabe qual registro mudou
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(ConflictException ex) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", ex.getMessage());
+        if (ex.getEntity() != null) body.put("entity", ex.getEntity());
+        if (ex.getId() != null) body.put("id", ex.getId());
+
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(body);
+    }
+
+    // alterações sem repetição automática (produtores, bens)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLock(OptimisticLockingFailureException ex) {
+        return handleConflict(ConflictException.of(ex));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGeneric(Exception ex) {
         return ResponseEntity
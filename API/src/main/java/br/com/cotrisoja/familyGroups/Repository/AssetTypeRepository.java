@@ -1,7 +1,15 @@
 package br.com.cotrisoja.familyGroups.Repository;
 
 import br.com.cotrisoja.familyGroups.Entity.AssetType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface AssetTypeRepository extends JpaRepository<AssetType, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<AssetType> findAll();
 }
@@ -0,0 +1,69 @@
+package br.com.cotrisoja.familyGroups.Repository.Batch;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitura dos cultivos para a exportação: uma linha por grupo, na ordem do id, lida em blocos
+ * de {@value #FETCH_SIZE}. No PostgreSQL o driver só respeita o fetch size dentro de uma
+ * transação; fora dela o resultado inteiro é carregado de uma vez.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CultivationExportRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /*
+     * colunas: id, principal_registration, principal_name, branch_name, technician_name,
+     * total_area, free_area (nulos sem bens) e área/participação de cada cultivo.
+     * Filtros nulos são ignorados; como nas consultas por carteira e técnico, vale a do principal
+     */
+    public void forEachCultivation(Long branchId, Long technicianId, RowCallbackHandler handler) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder();
+
+        if (branchId != null) {
+            where.append(" AND p.branch_id = ?");
+            args.add(branchId);
+        }
+        if (technicianId != null) {
+            where.append(" AND p.technician_id = ?");
+            args.add(technicianId);
+        }
+
+        String sql = """
+                SELECT fg.id,
+                       p.registration_number AS principal_registration,
+                       p.name AS principal_name,
+                       b.name AS branch_name,
+                       u.name AS technician_name,
+                       a.total_area, a.free_area,
+                       fg.canola_area, fg.canola_area_participation,
+                       fg.wheat_area, fg.wheat_area_participation,
+                       fg.corn_silage_area, fg.corn_silage_area_participation,
+                       fg.grain_corn_area, fg.grain_corn_area_participation,
+                       fg.bean_area, fg.bean_area_participation,
+                       fg.soybean_area, fg.soybean_area_participation
+                  FROM family_group fg
+                  LEFT JOIN farmer p ON p.registration_number = fg.principal_farmer_id
+                  LEFT JOIN branch b ON b.id = p.branch_id
+                  LEFT JOIN users u ON u.id = p.technician_id
+                  LEFT JOIN family_group_area a ON a.family_group_id = fg.id
+                 WHERE 1 = 1""" + where + " ORDER BY fg.id";
+
+        jdbcTemplate.query(sql, ps -> {
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+        }, handler);
+    }
+}
@@ -0,0 +1,116 @@
+package br.com.cotrisoja.familyGroups.Repository.Batch;
+
+import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Estrutura da busca de produtores: a coluna search_name e, no PostgreSQL, os índices de
+ * trigramas que atendem LIKE '%termo%'. No H2 a mesma busca roda sem esses índices.
+ * Também lê as linhas usadas pelo índice em memória da busca instantânea.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FarmerSearchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    // linhas gravadas antes da coluna existir
+    public int backfillSearchNames() {
+        List<Object[]> rows = jdbcTemplate.query(
+                "SELECT registration_number, name FROM farmer WHERE search_name IS NULL",
+                (rs, i) -> new Object[]{Farmer.normalizeSearch(rs.getString("name")), rs.getString("registration_number")});
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE farmer SET search_name = ? WHERE registration_number = ?", rows);
+        }
+        return rows.size();
+    }
+
+    public boolean supportsTrigramIndexes() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(product);
+    }
+
+    // idempotente; CREATE EXTENSION exige permissão no banco
+    public void createTrigramIndexes() {
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        jdbcTemplate.execute("""
+                CREATE INDEX IF NOT EXISTS idx_farmer_search_name_trgm
+                    ON farmer USING gin (search_name gin_trgm_ops)
+                """);
+        jdbcTemplate.execute("""
+                CREATE INDEX IF NOT EXISTS idx_farmer_registration_trgm
+                    ON farmer USING gin (registration_number gin_trgm_ops)
+                """);
+    }
+
+    // colunas: registration_number, name, status, blocked, family_group_id
+    public void forEachFarmer(RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT registration_number, name, status, blocked, family_group_id FROM farmer", handler);
+    }
+
+    // colunas: id, principal_registration, principal_name (nulos para grupo sem principal)
+    public void forEachFamilyGroup(RowCallbackHandler handler) {
+        jdbcTemplate.query("""
+                SELECT fg.id, p.registration_number AS principal_registration, p.name AS principal_name
+                  FROM family_group fg
+                  LEFT JOIN farmer p ON p.registration_number = fg.principal_farmer_id
+                """, handler);
+    }
+
+    /*
+     * Produtores informados e todos os membros dos seus grupos e dos grupos informados, com o
+     * tamanho atual de cada grupo. Colunas: as de forEachFarmer e group_size
+     */
+    public void forEachFarmer(Collection<String> registrations, Collection<Long> familyGroupIds, RowCallbackHandler handler) {
+        List<String> where = new ArrayList<>();
+        if (!registrations.isEmpty()) {
+            where.add("f.registration_number IN (:registrations)");
+            where.add("f.family_group_id IN (SELECT c.family_group_id FROM farmer c WHERE c.registration_number IN (:registrations))");
+        }
+        if (!familyGroupIds.isEmpty()) {
+            where.add("f.family_group_id IN (:familyGroupIds)");
+        }
+        if (where.isEmpty()) return;
+
+        namedJdbcTemplate.query("""
+                SELECT f.registration_number, f.name, f.status, f.blocked, f.family_group_id,
+                       (SELECT COUNT(*) FROM farmer m WHERE m.family_group_id = f.family_group_id) AS group_size
+                  FROM farmer f
+                 WHERE\s""" + String.join(" OR ", where),
+                new MapSqlParameterSource()
+                        .addValue("registrations", registrations)
+                        .addValue("familyGroupIds", familyGroupIds),
+                handler);
+    }
+
+    // grupos informados e grupos cujo principal é um dos produtores informados; colunas as de forEachFamilyGroup
+    public void forEachFamilyGroup(Collection<Long> ids, Collection<String> principals, RowCallbackHandler handler) {
+        List<String> where = new ArrayList<>();
+        if (!ids.isEmpty()) where.add("fg.id IN (:ids)");
+        if (!principals.isEmpty()) where.add("fg.principal_farmer_id IN (:principals)");
+        if (where.isEmpty()) return;
+
+        namedJdbcTemplate.query("""
+                SELECT fg.id, p.registration_number AS principal_registration, p.name AS principal_name
+                  FROM family_group fg
+                  LEFT JOIN farmer p ON p.registration_number = fg.principal_farmer_id
+                 WHERE\s""" + String.join(" OR ", where),
+                new MapSqlParameterSource()
+                        .addValue("ids", ids)
+                        .addValue("principals", principals),
+                handler);
+    }
+}
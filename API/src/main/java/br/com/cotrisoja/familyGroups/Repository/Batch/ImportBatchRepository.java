@@ -0,0 +1,321 @@
+package br.com.cotrisoja.familyGroups.Repository.Batch;
+
+import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+@Repository
+@RequiredArgsConstructor
+public class ImportBatchRepository {
+
+    private static final int IN_LIST_LIMIT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public record NewFarmer(
+            String registrationNumber,
+            String name,
+            StatusEnum status,
+            Long branchId,
+            Long technicianId,
+            double ownedArea,
+            double leasedArea
+    ) {}
+
+    public record GroupAreaDelta(
+            Long familyGroupId,
+            double canolaArea,
+            double wheatArea,
+            double cornSilageArea,
+            double grainCornArea,
+            double beanArea,
+            double soybeanArea
+    ) {}
+
+    public record AssetWrite(
+            Long idSap,
+            String ownerRegistration,
+            String leasedToRegistration,
+            Long assetTypeId,
+            String description,
+            String address,
+            double amount
+    ) {}
+
+    public record FarmerState(Integer typeId, StatusEnum status, boolean blocked) {}
+
+    public record AssetKey(String ownerRegistration, long idSap) {}
+
+    // o que uma linha do farmer_update.csv aplica; typeId null mantém o tipo atual
+    public record FarmerUpdate(Integer typeId, boolean deceased, boolean blocked) {}
+
+    public Map<String, FarmerState> findFarmerStates(Collection<String> registrationNumbers) {
+        Map<String, FarmerState> result = new HashMap<>();
+        if (registrationNumbers.isEmpty()) return result;
+
+        namedJdbcTemplate.query(
+                "SELECT registration_number, type_id, status, blocked FROM farmer WHERE registration_number IN (:regs)",
+                new MapSqlParameterSource("regs", registrationNumbers),
+                rs -> {
+                    int typeId = rs.getInt("type_id");
+                    Integer type = rs.wasNull() ? null : typeId;
+                    String status = rs.getString("status");
+                    result.put(rs.getString("registration_number"), new FarmerState(
+                            type,
+                            status != null ? StatusEnum.valueOf(status) : null,
+                            rs.getBoolean("blocked")));
+                });
+        return result;
+    }
+
+    public Map<String, Long> findFingerprints(Collection<String> registrationNumbers) {
+        Map<String, Long> result = new HashMap<>();
+        if (registrationNumbers.isEmpty()) return result;
+
+        namedJdbcTemplate.query(
+                "SELECT registration_number, fingerprint FROM farmer_fingerprint WHERE registration_number IN (:regs)",
+                new MapSqlParameterSource("regs", registrationNumbers),
+                rs -> {
+                    result.put(rs.getString("registration_number"), rs.getLong("fingerprint"));
+                });
+        return result;
+    }
+
+    // superconjunto filtrado em memória: proprietários e idSaps consultados em listas separadas
+    public Set<AssetKey> findAssetKeys(Collection<AssetKey> keys) {
+        Set<AssetKey> result = new HashSet<>();
+        if (keys.isEmpty()) return result;
+
+        Set<String> owners = new HashSet<>();
+        Set<Long> idSaps = new HashSet<>();
+        keys.forEach(k -> {
+            owners.add(k.ownerRegistration());
+            idSaps.add(k.idSap());
+        });
+
+        namedJdbcTemplate.query(
+                "SELECT farmer_id, id_sap FROM assets WHERE farmer_id IN (:owners) AND id_sap IN (:ids)",
+                new MapSqlParameterSource("owners", owners).addValue("ids", idSaps),
+                rs -> {
+                    AssetKey key = new AssetKey(rs.getString("farmer_id"), rs.getLong("id_sap"));
+                    if (keys.contains(key)) result.add(key);
+                });
+        return result;
+    }
+
+    // matrícula -> id do grupo atual (null se sem grupo); matrículas inexistentes ficam fora do mapa
+    public Map<String, Long> findFarmerGroups(Collection<String> registrationNumbers) {
+        Map<String, Long> result = new HashMap<>();
+        if (registrationNumbers.isEmpty()) return result;
+
+        namedJdbcTemplate.query(
+                "SELECT registration_number, family_group_id FROM farmer WHERE registration_number IN (:regs)",
+                new MapSqlParameterSource("regs", registrationNumbers),
+                rs -> {
+                    long groupId = rs.getLong("family_group_id");
+                    result.put(rs.getString("registration_number"), rs.wasNull() ? null : groupId);
+                });
+        return result;
+    }
+
+    public Map<String, Long> findGroupIdsByPrincipals(Collection<String> principalRegistrations) {
+        Map<String, Long> result = new HashMap<>();
+        if (principalRegistrations.isEmpty()) return result;
+
+        namedJdbcTemplate.query(
+                "SELECT id, principal_farmer_id FROM family_group WHERE principal_farmer_id IN (:regs)",
+                new MapSqlParameterSource("regs", principalRegistrations),
+                rs -> {
+                    result.merge(rs.getString("principal_farmer_id"), rs.getLong("id"), Math::max);
+                });
+        return result;
+    }
+
+    public void insertFarmers(List<NewFarmer> farmers) {
+        if (farmers.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO farmer (registration_number, name, search_name, status, branch_id, technician_id,
+                                    owned_area, leased_area, blocked)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, FALSE)
+                """,
+                farmers.stream()
+                        .map(f -> new Object[]{
+                                f.registrationNumber(), f.name(), Farmer.normalizeSearch(f.name()), f.status().name(),
+                                f.branchId(), f.technicianId(), f.ownedArea(), f.leasedArea()})
+                        .toList());
+    }
+
+    public Map<String, Long> insertFamilyGroups(Collection<String> principalRegistrations) {
+        if (principalRegistrations.isEmpty()) return Map.of();
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO family_group (principal_farmer_id,
+                                          canola_area, canola_area_participation,
+                                          wheat_area, wheat_area_participation,
+                                          corn_silage_area, corn_silage_area_participation,
+                                          grain_corn_area, grain_corn_area_participation,
+                                          bean_area, bean_area_participation,
+                                          soybean_area, soybean_area_participation)
+                VALUES (?, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0)
+                """,
+                principalRegistrations.stream().map(reg -> new Object[]{reg}).toList());
+
+        return findGroupIdsByPrincipals(principalRegistrations);
+    }
+
+    public void updateFarmerGroups(Map<String, Long> groupByFarmer) {
+        if (groupByFarmer.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(
+                "UPDATE farmer SET family_group_id = ?, version = version + 1 WHERE registration_number = ?",
+                groupByFarmer.entrySet().stream()
+                        .map(e -> new Object[]{e.getValue(), e.getKey()})
+                        .toList());
+    }
+
+    // um UPDATE por grupo, com os novos membros numa lista IN
+    public void moveFarmersToGroups(Map<Long, List<String>> membersByGroup) {
+        membersByGroup.forEach((groupId, registrations) -> {
+            for (int i = 0; i < registrations.size(); i += IN_LIST_LIMIT) {
+                namedJdbcTemplate.update(
+                        "UPDATE farmer SET family_group_id = :group, version = version + 1 WHERE registration_number IN (:regs)",
+                        new MapSqlParameterSource("group", groupId)
+                                .addValue("regs", registrations.subList(i, Math.min(i + IN_LIST_LIMIT, registrations.size()))));
+            }
+        });
+    }
+
+    // family_group.member_count dos grupos cujos membros mudaram
+    public void recountMembers(Collection<Long> familyGroupIds) {
+        List<Long> ids = new ArrayList<>(familyGroupIds);
+        for (int i = 0; i < ids.size(); i += IN_LIST_LIMIT) {
+            namedJdbcTemplate.update("""
+                    UPDATE family_group
+                       SET member_count = (SELECT COUNT(*) FROM farmer f WHERE f.family_group_id = family_group.id)
+                     WHERE id IN (:ids)
+                    """,
+                    new MapSqlParameterSource("ids", ids.subList(i, Math.min(i + IN_LIST_LIMIT, ids.size()))));
+        }
+    }
+
+    public void addGroupAreas(List<GroupAreaDelta> deltas) {
+        if (deltas.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate("""
+                UPDATE family_group
+                   SET canola_area      = COALESCE(canola_area, 0)      + ?,
+                       wheat_area       = COALESCE(wheat_area, 0)       + ?,
+                       corn_silage_area = COALESCE(corn_silage_area, 0) + ?,
+                       grain_corn_area  = COALESCE(grain_corn_area, 0)  + ?,
+                       bean_area        = COALESCE(bean_area, 0)        + ?,
+                       soybean_area     = COALESCE(soybean_area, 0)     + ?,
+                       version          = version + 1
+                 WHERE id = ?
+                """,
+                deltas.stream()
+                        .map(d -> new Object[]{
+                                d.canolaArea(), d.wheatArea(), d.cornSilageArea(),
+                                d.grainCornArea(), d.beanArea(), d.soybeanArea(),
+                                d.familyGroupId()})
+                        .toList());
+    }
+
+    // atualiza os bens existentes e insere os demais; retorna quantos foram inseridos
+    public int upsertAssets(List<AssetWrite> assets) {
+        if (assets.isEmpty()) return 0;
+
+        int[] updated = jdbcTemplate.batchUpdate("""
+                UPDATE assets
+                   SET description = ?, address = ?, amount = ?,
+                       asset_type_id = ?, farmer_leased_id = ?, version = version + 1
+                 WHERE farmer_id = ? AND id_sap = ?
+                """,
+                assets.stream()
+                        .map(a -> new Object[]{
+                                a.description(), a.address(), a.amount(),
+                                a.assetTypeId(), a.leasedToRegistration(),
+                                a.ownerRegistration(), a.idSap()})
+                        .toList());
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                AssetWrite a = assets.get(i);
+                inserts.add(new Object[]{
+                        a.idSap(), a.ownerRegistration(), a.description(), a.address(),
+                        a.amount(), a.assetTypeId(), a.leasedToRegistration()});
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO assets (id_sap, farmer_id, description, address,
+                                        amount, asset_type_id, farmer_leased_id)
+                    VALUES (?, ?, ?, ?, ?, ?, ?)
+                    """,
+                    inserts);
+        }
+        return inserts.size();
+    }
+
+    // um UPDATE por combinação; produtores do tipo 1 nunca são alterados pelo arquivo
+    public void updateFarmers(Map<FarmerUpdate, List<String>> registrationsByUpdate) {
+        registrationsByUpdate.forEach((update, registrations) -> {
+            List<String> assignments = new ArrayList<>();
+            MapSqlParameterSource params = new MapSqlParameterSource();
+
+            if (update.typeId() != null) {
+                assignments.add("type_id = :type");
+                params.addValue("type", update.typeId());
+            }
+            if (update.deceased()) {
+                assignments.add("status = :status");
+                params.addValue("status", StatusEnum.DECEASED.name());
+            }
+            if (update.blocked()) {
+                assignments.add("blocked = TRUE");
+            }
+            if (assignments.isEmpty()) return;
+            assignments.add("version = version + 1");
+
+            String sql = "UPDATE farmer SET " + String.join(", ", assignments)
+                    + " WHERE registration_number IN (:regs) AND (type_id IS NULL OR type_id <> 1)";
+            for (int i = 0; i < registrations.size(); i += IN_LIST_LIMIT) {
+                namedJdbcTemplate.update(sql,
+                        params.addValue("regs", registrations.subList(i, Math.min(i + IN_LIST_LIMIT, registrations.size()))));
+            }
+        });
+    }
+
+    public void saveFingerprints(Map<String, Long> fingerprints) {
+        if (fingerprints.isEmpty()) return;
+
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(fingerprints.entrySet());
+        int[] updated = jdbcTemplate.batchUpdate(
+                "UPDATE farmer_fingerprint SET fingerprint = ? WHERE registration_number = ?",
+                entries.stream()
+                        .map(e -> new Object[]{e.getValue(), e.getKey()})
+                        .toList());
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                inserts.add(new Object[]{entries.get(i).getKey(), entries.get(i).getValue()});
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO farmer_fingerprint (registration_number, fingerprint) VALUES (?, ?)",
+                    inserts);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.cotrisoja.familyGroups.Repository.Batch;
+
+import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+import lombok.RequiredArgsConstructor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leituras e gravações em bloco das alterações de membros em lote. A criação de grupos e a
+ * movimentação de produtores usam as mesmas operações da importação (ImportBatchRepository).
+ */
+@Repository
+@RequiredArgsConstructor
+public class MembershipBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public record GroupState(String principal, int memberCount, long version) {}
+
+    public record FarmerMembership(Long familyGroupId, StatusEnum status, boolean blocked, long version) {}
+
+    public Map<Long, GroupState> findGroups(Collection<Long> ids) {
+        Map<Long, GroupState> result = new HashMap<>();
+        if (ids.isEmpty()) return result;
+
+        namedJdbcTemplate.query(
+                "SELECT id, principal_farmer_id, member_count, version FROM family_group WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    result.put(rs.getLong("id"),
+                            new GroupState(rs.getString("principal_farmer_id"), rs.getInt("member_count"),
+                                    rs.getLong("version")));
+                });
+        return result;
+    }
+
+    // matrículas inexistentes ficam fora do mapa
+    public Map<String, FarmerMembership> findFarmers(Collection<String> registrationNumbers) {
+        Map<String, FarmerMembership> result = new HashMap<>();
+        if (registrationNumbers.isEmpty()) return result;
+
+        namedJdbcTemplate.query(
+                "SELECT registration_number, family_group_id, status, blocked, version FROM farmer WHERE registration_number IN (:regs)",
+                new MapSqlParameterSource("regs", registrationNumbers),
+                rs -> {
+                    long groupId = rs.getLong("family_group_id");
+                    Long familyGroupId = rs.wasNull() ? null : groupId;
+                    String status = rs.getString("status");
+
+                    result.put(rs.getString("registration_number"), new FarmerMembership(
+                            familyGroupId,
+                            status != null ? StatusEnum.valueOf(status) : null,
+                            rs.getBoolean("blocked"),
+                            rs.getLong("version")));
+                });
+        return result;
+    }
+
+    /*
+     * Incrementam a versão das linhas que o lote vai alterar, desde que ainda seja a versão lida.
+     * Uma linha alterada por outra transação depois da leitura é conflito; as linhas reservadas
+     * ficam travadas até o commit, então as gravações seguintes não sobrescrevem ninguém
+     */
+    public void claimFarmers(Map<String, Long> versionByFarmer) {
+        claim("UPDATE farmer SET version = version + 1 WHERE registration_number = ? AND version = ?",
+                "Farmer", versionByFarmer);
+    }
+
+    public void claimGroups(Map<Long, Long> versionByGroup) {
+        claim("UPDATE family_group SET version = version + 1 WHERE id = ? AND version = ?",
+                "FamilyGroup", versionByGroup);
+    }
+
+    private <K> void claim(String sql, String entity, Map<K, Long> versions) {
+        if (versions.isEmpty()) return;
+
+        List<Map.Entry<K, Long>> entries = new ArrayList<>(versions.entrySet());
+        int[] updated = jdbcTemplate.batchUpdate(sql,
+                entries.stream().map(e -> new Object[]{e.getKey(), e.getValue()}).toList());
+
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new ObjectOptimisticLockingFailureException(entity, entries.get(i).getKey());
+            }
+        }
+    }
+
+    public void updatePrincipals(Map<Long, String> principalByGroup) {
+        if (principalByGroup.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(
+                "UPDATE family_group SET principal_farmer_id = ?, version = version + 1 WHERE id = ?",
+                principalByGroup.entrySet().stream()
+                        .map(e -> new Object[]{e.getValue(), e.getKey()})
+                        .toList());
+    }
+
+    // só grupos já sem membros
+    public void deleteGroups(Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+
+        namedJdbcTemplate.update("DELETE FROM family_group WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids));
+    }
+}
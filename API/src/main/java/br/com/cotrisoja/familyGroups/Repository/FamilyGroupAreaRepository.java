@@ -0,0 +1,75 @@
+package br.com.cotrisoja.familyGroups.Repository;
+
+import br.com.cotrisoja.familyGroups.Entity.FamilyGroupArea;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FamilyGroupAreaRepository extends JpaRepository<FamilyGroupArea, Long> {
+
+    // a área de um bem conta para o grupo do arrendatário, ou do proprietário se não estiver arrendado
+    String CONTRIBUTIONS = """
+        (SELECT f.family_group_id, a.asset_type_id, a.amount, a.cultivable
+           FROM assets a
+           JOIN farmer f ON f.registration_number = a.farmer_leased_id
+         UNION ALL
+         SELECT f.family_group_id, a.asset_type_id, a.amount, a.cultivable
+           FROM assets a
+           JOIN farmer f ON f.registration_number = a.farmer_id
+          WHERE a.farmer_leased_id IS NULL) x
+        """;
+
+    // MERGE padrão (PostgreSQL 15+ e H2): a linha de cada grupo é atualizada no lugar ou criada
+    String MERGE_SUMMARY = """
+        MERGE INTO family_group_area t
+        USING (SELECT x.family_group_id,
+                      COALESCE(SUM(CASE WHEN x.asset_type_id = 1 AND x.cultivable > 0 THEN x.cultivable END), 0) AS free_area,
+                      COALESCE(SUM(CASE WHEN x.asset_type_id = 1 THEN x.amount END), 0) AS total_area,
+                      COALESCE(SUM(x.cultivable), 0) AS cultivable_area
+                 FROM """ + CONTRIBUTIONS + """
+                WHERE x.family_group_id IN (:ids)
+                GROUP BY x.family_group_id) s
+           ON t.family_group_id = s.family_group_id
+         WHEN MATCHED THEN
+              UPDATE SET free_area = s.free_area, total_area = s.total_area, cultivable_area = s.cultivable_area
+         WHEN NOT MATCHED THEN
+              INSERT (family_group_id, free_area, total_area, cultivable_area)
+              VALUES (s.family_group_id, s.free_area, s.total_area, s.cultivable_area)
+        """;
+
+    /*
+     * Trava as linhas dos grupos, sempre em ordem de id, até o fim da transação: duas atualizações
+     * do mesmo grupo são feitas uma depois da outra, e a segunda já lê os bens e membros gravados
+     * pela primeira
+     */
+    @Query(value = "SELECT id FROM family_group WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockFamilyGroups(@Param("ids") Collection<Long> familyGroupIds);
+
+    @Query(value = "SELECT id FROM family_group ORDER BY id", nativeQuery = true)
+    List<Long> findAllFamilyGroupIds();
+
+    @Modifying
+    @Query(value = MERGE_SUMMARY, nativeQuery = true)
+    int mergeForFamilyGroups(@Param("ids") Collection<Long> familyGroupIds);
+
+    // grupos que ficaram sem bens, ou que deixaram de existir
+    @Modifying
+    @Query(value = """
+        DELETE FROM family_group_area
+         WHERE family_group_id IN (:ids)
+           AND family_group_id NOT IN (SELECT x.family_group_id FROM """ + CONTRIBUTIONS + """
+                                        WHERE x.family_group_id IN (:ids))
+        """, nativeQuery = true)
+    void deleteWithoutAssets(@Param("ids") Collection<Long> familyGroupIds);
+
+    @Modifying
+    @Query(value = """
+        DELETE FROM family_group_area
+         WHERE NOT EXISTS (SELECT 1 FROM family_group g WHERE g.id = family_group_area.family_group_id)
+        """, nativeQuery = true)
+    int deleteOrphans();
+}
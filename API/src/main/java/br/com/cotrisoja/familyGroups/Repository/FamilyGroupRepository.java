@@ -1,21 +1,83 @@
 package br.com.cotrisoja.familyGroups.Repository;
 
-import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FreeAreaAggDTO;
 import br.com.cotrisoja.familyGroups.Entity.Branch;
 import br.com.cotrisoja.familyGroups.Entity.FamilyGroup;
 import br.com.cotrisoja.familyGroups.Entity.Farmer;
 import br.com.cotrisoja.familyGroups.Entity.User;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-
-
-public interface FamilyGroupRepository extends JpaRepository<FamilyGroup, Long> {
+import java.util.stream.Stream;
+
+
+public interface FamilyGroupRepository extends
+        JpaRepository<FamilyGroup, Long>,
+        JpaSpecificationExecutor<FamilyGroup>,
+        FamilyGroupViewRepository {
+
+    // member_count é mantido só por estes dois comandos; as alterações pendentes vão antes ao banco
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(value = """
+        UPDATE family_group
+           SET member_count = (SELECT COUNT(*) FROM farmer f WHERE f.family_group_id = family_group.id)
+         WHERE id IN (:ids)
+        """, nativeQuery = true)
+    void recountMembers(@Param("ids") Collection<Long> familyGroupIds);
+
+    // grupos com a contagem nula (criados antes da coluna) ou diferente da real
+    String STALE_MEMBER_COUNT = """
+         WHERE member_count IS NULL
+            OR member_count <> (SELECT COUNT(*) FROM farmer f WHERE f.family_group_id = family_group.id)
+        """;
+
+    // só leitura: não invalida o cache de consultas como o UPDATE abaixo
+    @Query(value = "SELECT COUNT(*) FROM family_group" + STALE_MEMBER_COUNT, nativeQuery = true)
+    long countStaleMemberCounts();
+
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(value = """
+        UPDATE family_group
+           SET member_count = (SELECT COUNT(*) FROM farmer f WHERE f.family_group_id = family_group.id)
+        """ + STALE_MEMBER_COUNT, nativeQuery = true)
+    int recountAllMembers();
+
+    default Window<FamilyGroup> scroll(Specification<FamilyGroup> spec, Sort sort, int limit, ScrollPosition position) {
+        return findBy(spec, query -> query.sortBy(sort).limit(limit).scroll(position));
+    }
+
+    // cursor só de leitura para a exportação completa; precisa de uma transação aberta enquanto é lido
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT fg
+          FROM FamilyGroup fg
+          LEFT JOIN FETCH fg.principal p
+          LEFT JOIN FETCH p.technician
+          LEFT JOIN FETCH p.branch
+          LEFT JOIN FETCH p.type
+         ORDER BY fg.id
+        """)
+    Stream<FamilyGroup> streamAll();
 
     @Query("SELECT f FROM FamilyGroup f WHERE f.principal.technician = :technician ORDER BY f.principal.name")
     List<FamilyGroup> findByTechnician(@Param("technician") User technician);
@@ -71,76 +133,6 @@ public interface FamilyGroupRepository extends JpaRepository<FamilyGroup, Long>
     """)
     Double getFamilyGroupFreeArea(@Param("familyGroup") FamilyGroup familyGroup);
 
-//    @Query("""
-//        SELECT new br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FreeAreaAggDTO(
-//                   COALESCE(lfg.id, ofg.id),
-//                   COALESCE(SUM(a.amount), 0)
-//               )
-//        FROM   Asset a
-//        LEFT  JOIN a.leasedTo    l
-//        LEFT  JOIN l.familyGroup lfg
-//        LEFT  JOIN a.owner       o
-//        LEFT  JOIN o.familyGroup ofg
-//        WHERE  (lfg IN :familyGroups)
-//           OR  (l IS NULL AND ofg IN :familyGroups)
-//        GROUP BY COALESCE(lfg.id, ofg.id)
-//        """)
-//    List<FreeAreaAggDTO> getFreeAreaForGroups(
-//            @Param("familyGroups") List<FamilyGroup> familyGroups);
-
-    @Query("""
-        SELECT new br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FreeAreaAggDTO(
-                   COALESCE(lfg.id, ofg.id),
-                   COALESCE(SUM(a.cultivable), 0)
-               )
-        FROM   Asset a
-        LEFT  JOIN a.leasedTo    l
-        LEFT  JOIN l.familyGroup lfg
-        LEFT  JOIN a.owner       o
-        LEFT  JOIN o.familyGroup ofg
-        WHERE  (
-                  (lfg IN :familyGroups)
-               OR (l IS NULL AND ofg IN :familyGroups)
-               )
-          AND  COALESCE(a.cultivable, 0) > 0
-          AND a.assetType.id = 1
-        GROUP BY COALESCE(lfg.id, ofg.id)
-    """)
-    List<FreeAreaAggDTO> getFreeAreaForGroups(
-            @Param("familyGroups") List<FamilyGroup> familyGroups);
-
-    @Query("""
-        SELECT new br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FreeAreaAggDTO(
-                   COALESCE(lfg.id, ofg.id),
-                   COALESCE(SUM(a.amount), 0)
-               )
-        FROM   Asset a
-        LEFT  JOIN a.leasedTo    l
-        LEFT  JOIN l.familyGroup lfg
-        LEFT  JOIN a.owner       o
-        LEFT  JOIN o.familyGroup ofg
-        WHERE  (
-                  (lfg IN :familyGroups)
-               OR (l IS NULL AND ofg IN :familyGroups)
-               )
-               AND a.assetType.id = 1
-        GROUP BY COALESCE(lfg.id, ofg.id)
-    """)
-    List<FreeAreaAggDTO> getAreaForGroups(
-            @Param("familyGroups") List<FamilyGroup> familyGroups);
-
-    @Query("""
-        SELECT SUM(COALESCE(cultivable, 0))
-        FROM   Asset a
-        LEFT  JOIN a.leasedTo       l
-        LEFT  JOIN l.familyGroup    lfg
-        LEFT  JOIN a.owner          o
-        LEFT  JOIN o.familyGroup    ofg
-        WHERE  lfg = :familyGroup
-           OR (ofg = :familyGroup AND l IS NULL)
-    """)
-    Double getFreeAreaForGroup(@Param("familyGroup") FamilyGroup familyGroup);
-
     @Query("""
         SELECT SUM(a.amount)
         FROM Asset a
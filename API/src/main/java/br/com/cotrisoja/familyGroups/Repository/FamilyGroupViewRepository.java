@@ -0,0 +1,22 @@
+package br.com.cotrisoja.familyGroups.Repository;
+
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupSummaryDTO;
+import br.com.cotrisoja.familyGroups.Entity.FamilyGroup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Listagem resumida de grupos (FamilyGroupSummaryDTO): só as colunas da projeção, numa única
+ * consulta por página, com as mesmas Specifications da listagem completa.
+ */
+public interface FamilyGroupViewRepository {
+
+    Page<FamilyGroupSummaryDTO> findSummaries(Specification<FamilyGroup> spec, Pageable pageable);
+
+    // mesmo contrato de FamilyGroupRepository.scroll (chave: id), então os cursores servem para as duas
+    Window<FamilyGroupSummaryDTO> scrollSummaries(Specification<FamilyGroup> spec, Sort sort, int limit, ScrollPosition position);
+}
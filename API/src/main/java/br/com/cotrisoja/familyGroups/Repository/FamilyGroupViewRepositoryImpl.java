@@ -0,0 +1,91 @@
+package br.com.cotrisoja.familyGroups.Repository;
+
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupSummaryDTO;
+import br.com.cotrisoja.familyGroups.Entity.FamilyGroup;
+import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import br.com.cotrisoja.familyGroups.Repository.Spec.FamilyGroupSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class FamilyGroupViewRepositoryImpl implements FamilyGroupViewRepository {
+
+    private static final String ID = "id";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Page<FamilyGroupSummaryDTO> findSummaries(Specification<FamilyGroup> spec, Pageable pageable) {
+        TypedQuery<FamilyGroupSummaryDTO> query = query(spec, pageable.getSort(), null);
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(query.getResultList());
+        }
+
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public Window<FamilyGroupSummaryDTO> scrollSummaries(Specification<FamilyGroup> spec, Sort sort, int limit, ScrollPosition position) {
+        Sort.Order order = sort.getOrderFor(ID) != null ? sort.getOrderFor(ID) : Sort.Order.asc(ID);
+        Object key = ((KeysetScrollPosition) position).getKeys().get(ID);
+
+        // uma linha a mais que a página só indica que há próxima
+        List<FamilyGroupSummaryDTO> rows = query(spec, Sort.by(order), key != null ? ((Number) key).longValue() : null)
+                .setMaxResults(limit + 1)
+                .getResultList();
+        List<FamilyGroupSummaryDTO> content = rows.subList(0, Math.min(rows.size(), limit));
+
+        return Window.from(content,
+                i -> ScrollPosition.forward(Map.of(ID, content.get(i).id())),
+                rows.size() > limit);
+    }
+
+    // after: id da última linha da página anterior; só a ordenação por id tem cursor
+    private TypedQuery<FamilyGroupSummaryDTO> query(Specification<FamilyGroup> spec, Sort sort, Long after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FamilyGroupSummaryDTO> query = cb.createQuery(FamilyGroupSummaryDTO.class);
+        Root<FamilyGroup> root = query.from(FamilyGroup.class);
+
+        Join<FamilyGroup, Farmer> principal = FamilyGroupSpecifications.principal(root);
+        query.select(cb.construct(FamilyGroupSummaryDTO.class,
+                root.get(ID), principal.get("registrationNumber"), principal.get("name"), root.get("memberCount")));
+
+        List<Predicate> where = new ArrayList<>();
+        Predicate filter = spec.toPredicate(root, query, cb);
+        if (filter != null) where.add(filter);
+        if (after != null) {
+            Path<Long> id = root.get(ID);
+            where.add(sort.getOrderFor(ID).isAscending() ? cb.greaterThan(id, after) : cb.lessThan(id, after));
+        }
+        query.where(where.toArray(Predicate[]::new));
+
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<FamilyGroup> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<FamilyGroup> root = query.from(FamilyGroup.class);
+
+        Predicate filter = spec.toPredicate(root, query, cb);
+        if (filter != null) query.where(filter);
+        query.select(cb.count(root));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
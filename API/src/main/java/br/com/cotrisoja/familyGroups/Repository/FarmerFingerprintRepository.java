@@ -0,0 +1,7 @@
+package br.com.cotrisoja.familyGroups.Repository;
+
+import br.com.cotrisoja.familyGroups.Entity.FarmerFingerprint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface FarmerFingerprintRepository extends JpaRepository<FarmerFingerprint, String> {
+}
@@ -1,123 +1,62 @@
 package br.com.cotrisoja.familyGroups.Repository;
 
 import br.com.cotrisoja.familyGroups.Entity.*;
-import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
 import br.com.cotrisoja.familyGroups.Repository.Spec.FarmerSpecifications;
-import jakarta.persistence.criteria.JoinType;
-import jakarta.persistence.criteria.Root;
-import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
-import jakarta.persistence.criteria.Predicate;
-
-import java.util.ArrayList;
-import java.util.List;
 
 public interface FarmerRepository extends
         JpaRepository<Farmer, String>,
-        JpaSpecificationExecutor<Farmer> {
+        JpaSpecificationExecutor<Farmer>,
+        FarmerViewRepository {
+
+    // paginação por cursor: o custo de cada página não depende da profundidade
+    default Window<Farmer> scroll(Specification<Farmer> spec, Sort sort, int limit, ScrollPosition position) {
+        return findBy(spec, query -> query.sortBy(sort).limit(limit).scroll(position));
+    }
+
+    @Override
+    @EntityGraph(Farmer.PAGE_GRAPH)
+    Page<Farmer> findAll(Pageable pageable);
+
+    // usado por todas as buscas paginadas com filtro abaixo
+    @Override
+    @EntityGraph(Farmer.PAGE_GRAPH)
+    Page<Farmer> findAll(Specification<Farmer> spec, Pageable pageable);
 
     @Query("""
         SELECT f FROM Farmer f
+        LEFT JOIN f.familyGroup fg
         WHERE f.status = 'ACTIVE'
-          AND (f.familyGroup IS NULL OR f.familyGroup.id IN (
-               SELECT fg.id FROM FamilyGroup fg
-               JOIN fg.members m
-               GROUP BY fg.id
-               HAVING COUNT(m) = 1))
+          AND f.blocked = false
+          AND (fg IS NULL OR fg.memberCount <= 1)
     """)
+    @EntityGraph(Farmer.PAGE_GRAPH)
     Page<Farmer> findAvailableFarmers(Pageable pageable);
 
     default Page<Farmer> findAvailableFarmersByName(String search, Pageable page) {
-        return findAll((root, query, cb) -> {
-            Subquery<Long> subquery = query.subquery(Long.class);
-            Root<Farmer> subRoot = subquery.from(Farmer.class);
-            subquery.select(cb.count(subRoot))
-                    .where(cb.equal(subRoot.get("familyGroup"), root.get("familyGroup")));
-
-            Predicate namePredicate = FarmerSpecifications.nameContainsTokens(search).toPredicate(root, query, cb);
-            Predicate statusPredicate = cb.equal(root.get("status"), StatusEnum.ACTIVE);
-            Predicate blockedPredicate = cb.equal(root.get("blocked"), false);
-            Predicate noGroupPredicate = cb.isNull(root.get("familyGroup"));
-            Predicate oneMemberPredicate = cb.equal(subquery, 1L);
-
-            return cb.and(
-                    namePredicate,
-                    statusPredicate,
-                    blockedPredicate,
-                    cb.or(noGroupPredicate, oneMemberPredicate)
-            );
-        }, page);
+        return findAll(FarmerSpecifications.available()
+                .and(FarmerSpecifications.nameContainsTokens(search)), page);
     }
 
 
     default Page<Farmer> findByValue(String value, Pageable page) {
-        value = (value == null) ? "" : value.trim().toLowerCase();
-        String[] tokens = value.split("\\s+");
-
-        String finalValue = value;
-        Specification<Farmer> spec = (root, q, cb) -> {
-
-            List<Predicate> nameParts = new ArrayList<>();
-            for (String t : tokens) {
-                nameParts.add(cb.like(cb.lower(root.get("name")), "%" + t + "%"));
-            }
-            Predicate nameHasAllTokens = cb.and(nameParts.toArray(Predicate[]::new));
-
-            List<Predicate> principalParts = new ArrayList<>();
-            for (String t : tokens) {
-                principalParts.add(
-                        cb.like(cb.lower(
-                                        root.join("familyGroup", JoinType.LEFT)
-                                                .join("principal", JoinType.LEFT)
-                                                .get("name")),
-                                "%" + t + "%"));
-            }
-            Predicate principalHasAllTokens = cb.and(principalParts.toArray(Predicate[]::new));
-
-            Predicate regLike = cb.like(
-                    cb.lower(root.get("registrationNumber").as(String.class)),
-                    "%" + finalValue + "%");
-
-            return cb.or(nameHasAllTokens, principalHasAllTokens, regLike);
-        };
-        return findAll(spec, page);
+        return findAll(FarmerSpecifications.matchesValue(value), page);
     }
 
-
     default Page<Farmer> findByValueAndType(String value, Long typeId, Pageable page) {
-        Specification<Farmer> baseType =
-                (r, q, cb) -> cb.equal(r.get("type").get("id"), typeId);
-
-        Specification<Farmer> nameTokens = FarmerSpecifications.nameContainsTokens(value);
-
-        Specification<Farmer> regNumber = (r, q, cb) -> {
-            if (value == null || value.isBlank()) return cb.conjunction();
-            return cb.like(cb.lower(r.get("registrationNumber").as(String.class)), "%" + value.toLowerCase() + "%");
-        };
-
-        Specification<Farmer> principalTokens = (r, q, cb) -> {
-            if (value == null || value.isBlank()) return cb.conjunction();
-            String[] toks = value.trim().toLowerCase().split("\\s+");
-            var principal = r.join("familyGroup").join("principal");
-            List<Predicate> ps = new ArrayList<>();
-            for (String t : toks) {
-                ps.add(cb.like(cb.lower(principal.get("name")), "%" + t + "%"));
-            }
-            return cb.and(ps.toArray(new Predicate[0]));
-        };
-
-        Specification<Farmer> full = baseType.and(
-                Specification.where(nameTokens).or(regNumber).or(principalTokens)
-        );
-
-        return findAll(full, page);
+        return findAll(FarmerSpecifications.matchesValueAndType(value, typeId), page);
     }
 
+    @EntityGraph(Farmer.PAGE_GRAPH)
     Page<Farmer> findByTechnician(User technician, Pageable pageable);
 
     default Page<Farmer> findByTechnicianWithSearch(User tech, String search, Pageable page) {
@@ -127,6 +66,7 @@ public interface FarmerRepository extends
         return findAll(spec, page);
     }
 
+    @EntityGraph(Farmer.PAGE_GRAPH)
     Page<Farmer> findByTechnicianIsNull(Pageable pageable);
 
     default Page<Farmer> findByTechnicianIsNullWithSearch(String search, Pageable page) {
@@ -136,6 +76,7 @@ public interface FarmerRepository extends
         return findAll(spec, page);
     }
 
+    @EntityGraph(Farmer.PAGE_GRAPH)
     Page<Farmer> findByTechnicianAndType(User technician, Type type, Pageable pageable);
 
     default Page<Farmer> findByTechnicianAndTypeWithSearch(
@@ -148,6 +89,7 @@ public interface FarmerRepository extends
         return findAll(spec, page);
     }
 
+    @EntityGraph(Farmer.PAGE_GRAPH)
     Page<Farmer> findByTechnicianIsNullAndType(Type type, Pageable pageable);
 
     default Page<Farmer> findByTechnicianIsNullAndTypeWithSearch(
@@ -160,6 +102,7 @@ public interface FarmerRepository extends
         return findAll(spec, page);
     }
 
+    @EntityGraph(Farmer.PAGE_GRAPH)
     Page<Farmer> findByBranch(Branch branch, Pageable pageable);
 
     default Page<Farmer> findByEffectiveBranchWithSearch(
@@ -174,6 +117,7 @@ public interface FarmerRepository extends
     /* --------------------------------------------------------------------- */
     /* CARTEIRA + TIPO ------------------------------------------------------ */
     /* --------------------------------------------------------------------- */
+    @EntityGraph(Farmer.PAGE_GRAPH)
     Page<Farmer> findByBranchAndType(Branch branch, Type type, Pageable pageable);
 
     default Page<Farmer> findByEffectiveBranchAndTypeWithSearch(
@@ -186,5 +130,6 @@ public interface FarmerRepository extends
         return findAll(spec, page);
     }
 
+    @EntityGraph(Farmer.PAGE_GRAPH)
     Page<Farmer> findByType(Type type, Pageable pageable);
 }
@@ -0,0 +1,26 @@
+package br.com.cotrisoja.familyGroups.Repository;
+
+import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Consultas de produtores que devolvem projeções (FarmerResponseMinimalDTO, FarmerSummaryDTO) em
+ * vez de entidades: o SELECT traz só as colunas da projeção e nenhuma associação é carregada.
+ * Os filtros são as mesmas Specifications das listagens completas.
+ */
+public interface FarmerViewRepository {
+
+    <T> Page<T> findAllAs(Class<T> projection, Specification<Farmer> spec, Pageable pageable);
+
+    <T> List<T> findAllAs(Class<T> projection, Specification<Farmer> spec, Sort sort);
+
+    // mesmo contrato de FarmerRepository.scroll, então os cursores servem para as duas
+    <T> Window<T> scrollAs(Class<T> projection, Specification<Farmer> spec, Sort sort, int limit, ScrollPosition position);
+}
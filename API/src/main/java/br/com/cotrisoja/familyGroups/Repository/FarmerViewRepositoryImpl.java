@@ -0,0 +1,147 @@
+package br.com.cotrisoja.familyGroups.Repository;
+
+import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerResponseMinimalDTO;
+import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerSummaryDTO;
+import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class FarmerViewRepositoryImpl implements FarmerViewRepository {
+
+    private static final String ID = "registrationNumber";
+
+    // ordenação das listagens por técnico e por carteira (FarmerController.buildSort)
+    private static final String TOTAL_AREA = "totalArea";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public <T> Page<T> findAllAs(Class<T> projection, Specification<Farmer> spec, Pageable pageable) {
+        TypedQuery<T> query = query(projection, spec, pageable.getSort(), Map.of());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(query.getResultList());
+        }
+
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public <T> List<T> findAllAs(Class<T> projection, Specification<Farmer> spec, Sort sort) {
+        return query(projection, spec, sort, Map.of()).getResultList();
+    }
+
+    @Override
+    public <T> Window<T> scrollAs(Class<T> projection, Specification<Farmer> spec, Sort sort, int limit, ScrollPosition position) {
+        // como no Spring Data, a matrícula desempata no fim da ordenação
+        Sort keyset = sort.getOrderFor(ID) != null ? sort : sort.and(Sort.by(ID));
+        Map<String, Object> after = ((KeysetScrollPosition) position).getKeys();
+
+        // uma linha a mais que a página só indica que há próxima
+        List<T> rows = query(projection, spec, keyset, after).setMaxResults(limit + 1).getResultList();
+        List<T> content = rows.subList(0, Math.min(rows.size(), limit));
+
+        return Window.from(content, i -> ScrollPosition.forward(keysOf(content.get(i), keyset)), rows.size() > limit);
+    }
+
+    private <T> TypedQuery<T> query(Class<T> projection, Specification<Farmer> spec, Sort sort, Map<String, Object> after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(projection);
+        Root<Farmer> root = query.from(Farmer.class);
+        query.select(cb.construct(projection, columns(projection, root)));
+
+        List<Predicate> where = new ArrayList<>();
+        Predicate filter = spec.toPredicate(root, query, cb);
+        if (filter != null) where.add(filter);
+        if (!after.isEmpty()) where.add(after(root, cb, sort, after));
+        query.where(where.toArray(Predicate[]::new));
+
+        // sem ordenação pedida vale a da Specification (a busca por valor ordena por relevância)
+        if (sort.isSorted()) {
+            query.orderBy(orders(root, cb, sort));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private static Selection<?>[] columns(Class<?> projection, Root<Farmer> root) {
+        if (projection == FarmerResponseMinimalDTO.class) {
+            return new Selection<?>[]{root.get(ID), root.get("name")};
+        }
+        if (projection == FarmerSummaryDTO.class) {
+            // o id de uma associação é a própria chave estrangeira: nenhuma junção
+            return new Selection<?>[]{
+                    root.get(ID), root.get("name"), root.get("status"), root.get("blocked"),
+                    root.get("ownedArea"), root.get("leasedArea"),
+                    root.get("familyGroup").get("id"), root.get("type").get("id"),
+                    root.get("technician").get("id"), root.get("branch").get("id")};
+        }
+        throw new IllegalArgumentException("Projeção de produtor não suportada: " + projection.getSimpleName());
+    }
+
+    private static List<Order> orders(Root<Farmer> root, CriteriaBuilder cb, Sort sort) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            if (TOTAL_AREA.equals(order.getProperty())) {
+                Expression<Double> total = cb.sum(
+                        cb.coalesce(root.<Double>get("ownedArea"), 0.0),
+                        cb.coalesce(root.<Double>get("leasedArea"), 0.0));
+                orders.add(order.isAscending() ? cb.asc(total) : cb.desc(total));
+            } else {
+                orders.addAll(QueryUtils.toOrders(Sort.by(order), root, cb));
+            }
+        }
+        return orders;
+    }
+
+    // linhas depois da chave: (a > ka) ou (a = ka e b > kb) ..., respeitando a direção de cada campo
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(Root<Farmer> root, CriteriaBuilder cb, Sort sort, Map<String, Object> keys) {
+        List<Predicate> alternatives = new ArrayList<>();
+        List<Predicate> equalSoFar = new ArrayList<>();
+
+        for (Sort.Order order : sort) {
+            Path<Comparable> path = root.get(order.getProperty());
+            Comparable key = (Comparable) keys.get(order.getProperty());
+
+            List<Predicate> alternative = new ArrayList<>(equalSoFar);
+            alternative.add(order.isAscending() ? cb.greaterThan(path, key) : cb.lessThan(path, key));
+            alternatives.add(cb.and(alternative.toArray(Predicate[]::new)));
+
+            equalSoFar.add(cb.equal(path, key));
+        }
+        return cb.or(alternatives.toArray(Predicate[]::new));
+    }
+
+    private static Map<String, Object> keysOf(Object row, Sort sort) {
+        DirectFieldAccessor accessor = new DirectFieldAccessor(row);
+        Map<String, Object> keys = new LinkedHashMap<>();
+        sort.forEach(order -> keys.put(order.getProperty(), accessor.getPropertyValue(order.getProperty())));
+        return keys;
+    }
+
+    private long count(Specification<Farmer> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Farmer> root = query.from(Farmer.class);
+
+        Predicate filter = spec.toPredicate(root, query, cb);
+        if (filter != null) query.where(filter);
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
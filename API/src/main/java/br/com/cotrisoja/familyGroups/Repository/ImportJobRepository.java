@@ -0,0 +1,63 @@
+package br.com.cotrisoja.familyGroups.Repository;
+
+import br.com.cotrisoja.familyGroups.Entity.ImportJob;
+import br.com.cotrisoja.familyGroups.Enum.ImportJobStatusEnum;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    // roda em transação própria, independente da transação do bloco em andamento
+    @Modifying
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Query("""
+        UPDATE ImportJob j
+           SET j.pass = :pass, j.passes = :passes,
+               j.rowsProcessed = :rowsProcessed, j.rowsFailed = :rowsFailed
+         WHERE j.id = :id
+    """)
+    void updateProgress(@Param("id") Long id,
+                        @Param("pass") int pass,
+                        @Param("passes") int passes,
+                        @Param("rowsProcessed") long rowsProcessed,
+                        @Param("rowsFailed") long rowsFailed);
+
+    // participa da transação do bloco: o checkpoint só é gravado se os dados do bloco forem
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportJob j SET j.checkpointPass = :pass, j.checkpointRow = :row WHERE j.id = :id")
+    void updateCheckpoint(@Param("id") Long id, @Param("pass") int pass, @Param("row") long row);
+
+    Optional<ImportJob> findFirstByFileHashOrderByIdDesc(String fileHash);
+
+    // só um dos envios simultâneos de um arquivo que falhou consegue voltar o job para a fila
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE ImportJob j
+           SET j.status = br.com.cotrisoja.familyGroups.Enum.ImportJobStatusEnum.QUEUED,
+               j.activeHash = j.fileHash, j.error = null, j.finishedAt = null
+         WHERE j.id = :id
+           AND j.status = br.com.cotrisoja.familyGroups.Enum.ImportJobStatusEnum.FAILED
+    """)
+    int requeueFailed(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE ImportJob j
+           SET j.status = br.com.cotrisoja.familyGroups.Enum.ImportJobStatusEnum.FAILED,
+               j.activeHash = null, j.error = :error, j.finishedAt = :finishedAt
+         WHERE j.status IN :statuses
+    """)
+    int failAll(@Param("statuses") Collection<ImportJobStatusEnum> statuses,
+                @Param("error") String error,
+                @Param("finishedAt") LocalDateTime finishedAt);
+}
@@ -0,0 +1,66 @@
+package br.com.cotrisoja.familyGroups.Repository.Spec;
+
+import br.com.cotrisoja.familyGroups.Entity.FamilyGroup;
+import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+public final class FamilyGroupSpecifications {
+
+    private FamilyGroupSpecifications() {}
+
+    /**
+     * Nome do principal contendo todos os termos, matrícula do principal contendo o valor ou, se o
+     * valor for numérico, o id do grupo igual a ele. Nome e matrícula usam os mesmos campos (e
+     * índices de trigramas) da busca de produtores; o id é comparado pela chave primária.
+     */
+    public static Specification<FamilyGroup> matchesValue(String value) {
+        return (root, query, cb) -> {
+            if (value == null || value.isBlank()) {
+                return cb.conjunction();
+            }
+
+            String trimmed = value.trim();
+            Join<FamilyGroup, Farmer> principal = principal(root);
+            List<Predicate> alternatives = new ArrayList<>();
+
+            String[] tokens = FarmerSpecifications.tokens(trimmed);
+            if (tokens.length > 0) {
+                alternatives.add(FarmerSpecifications.containsAll(cb, principal.get("searchName"), tokens));
+            }
+            alternatives.add(cb.like(principal.get("registrationNumber"), "%" + trimmed + "%"));
+
+            Long id = parseId(trimmed);
+            if (id != null) {
+                alternatives.add(cb.equal(root.get("id"), id));
+            }
+            return cb.or(alternatives.toArray(Predicate[]::new));
+        };
+    }
+
+    // a junção com o principal já feita na mesma consulta (pela projeção, por exemplo) é reaproveitada
+    @SuppressWarnings("unchecked")
+    public static Join<FamilyGroup, Farmer> principal(Root<FamilyGroup> root) {
+        return root.getJoins().stream()
+                .filter(join -> join.getAttribute().getName().equals("principal"))
+                .map(join -> (Join<FamilyGroup, Farmer>) join)
+                .findFirst()
+                .orElseGet(() -> root.join("principal", JoinType.LEFT));
+    }
+
+    private static Long parseId(String value) {
+        if (!value.chars().allMatch(Character::isDigit)) return null;
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package br.com.cotrisoja.familyGroups.Repository.Spec;
 
+import br.com.cotrisoja.familyGroups.Entity.Branch;
+import br.com.cotrisoja.familyGroups.Entity.FamilyGroup;
 import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import br.com.cotrisoja.familyGroups.Entity.Type;
+import br.com.cotrisoja.familyGroups.Entity.User;
+import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+import jakarta.persistence.criteria.*;
 import org.springframework.data.jpa.domain.Specification;
-import jakarta.persistence.criteria.Predicate;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,23 +18,107 @@ public final class FarmerSpecifications {
     private FarmerSpecifications() {}
 
 
+    /**
+     * Todos os termos contidos no nome. A comparação é feita sobre {@code searchName}, normalizado
+     * da mesma forma que os termos, então a busca ignora maiúsculas e acentos.
+     */
     public static Specification<Farmer> nameContainsTokens(String search) {
         return (root, query, cb) -> {
-            if (search == null || search.isBlank()) {
+            String[] tokens = tokens(search);
+            if (tokens.length == 0) {
                 return cb.conjunction();
             }
 
-            String[] tokens = search.trim()
-                    .toLowerCase()
-                    .split("\\s+");
+            return containsAll(cb, root.get("searchName"), tokens);
+        };
+    }
 
-            List<Predicate> predicates = new ArrayList<>(tokens.length);
-            for (String token : tokens) {
-                predicates.add(cb.like(cb.lower(root.get("name")),
-                        "%" + token + "%"));
+    /**
+     * Nome ou nome do principal contendo todos os termos, ou matrícula contendo o valor.
+     * Sem ordenação na página, os resultados vêm por relevância: matrícula exata, nome
+     * começando pelo primeiro termo e depois os demais, em ordem alfabética.
+     */
+    public static Specification<Farmer> matchesValue(String value) {
+        return (root, q, cb) -> {
+            String[] tokens = tokens(value);
+            if (tokens.length == 0) {
+                return cb.conjunction();
             }
 
-            return cb.and(predicates.toArray(Predicate[]::new));
+            Path<String> principalName = root.join("familyGroup", JoinType.LEFT)
+                    .join("principal", JoinType.LEFT)
+                    .get("searchName");
+
+            if (q.getResultType() != Long.class && q.getResultType() != long.class) {
+                q.orderBy(rank(root, cb, value, tokens), cb.asc(root.get("searchName")));
+            }
+
+            return cb.or(
+                    containsAll(cb, root.get("searchName"), tokens),
+                    containsAll(cb, principalName, tokens),
+                    registrationContains(root, cb, value)
+            );
+        };
+    }
+
+    public static Specification<Farmer> matchesValueAndType(String value, Long typeId) {
+        Specification<Farmer> baseType =
+                (r, q, cb) -> cb.equal(r.get("type").get("id"), typeId);
+
+        return baseType.and(matchesValue(value));
+    }
+
+    // ativo, não bloqueado e sem grupo ou sozinho nele: mesma regra de findAvailableFarmers
+    public static Specification<Farmer> available() {
+        return (root, query, cb) -> {
+            Join<Farmer, FamilyGroup> group = root.join("familyGroup", JoinType.LEFT);
+
+            return cb.and(
+                    cb.equal(root.get("status"), StatusEnum.ACTIVE),
+                    cb.isFalse(root.get("blocked")),
+                    cb.or(cb.isNull(group.get("id")), cb.le(group.get("memberCount"), 1))
+            );
         };
     }
-}
\ No newline at end of file
+
+    // técnico nulo: produtores sem técnico
+    public static Specification<Farmer> hasTechnician(User technician) {
+        return (r, q, cb) -> technician == null
+                ? cb.isNull(r.get("technician"))
+                : cb.equal(r.get("technician"), technician);
+    }
+
+    public static Specification<Farmer> hasBranch(Branch branch) {
+        return (r, q, cb) -> cb.equal(r.get("branch"), branch);
+    }
+
+    // tipo nulo: qualquer tipo
+    public static Specification<Farmer> hasType(Type type) {
+        return (r, q, cb) -> type == null ? cb.conjunction() : cb.equal(r.get("type"), type);
+    }
+
+    // mesma normalização do searchName gravado
+    static String[] tokens(String value) {
+        String normalized = Farmer.normalizeSearch(value);
+        return (normalized == null || normalized.isEmpty()) ? new String[0] : normalized.split(" ");
+    }
+
+    static Predicate containsAll(CriteriaBuilder cb, Expression<String> field, String[] tokens) {
+        List<Predicate> predicates = new ArrayList<>(tokens.length);
+        for (String token : tokens) {
+            predicates.add(cb.like(field, "%" + token + "%"));
+        }
+        return cb.and(predicates.toArray(Predicate[]::new));
+    }
+
+    private static Predicate registrationContains(Root<Farmer> root, CriteriaBuilder cb, String value) {
+        return cb.like(root.get("registrationNumber"), "%" + value.trim() + "%");
+    }
+
+    private static Order rank(Root<Farmer> root, CriteriaBuilder cb, String value, String[] tokens) {
+        return cb.asc(cb.<Integer>selectCase()
+                .when(cb.equal(root.get("registrationNumber"), value.trim()), 0)
+                .when(cb.like(root.get("searchName"), tokens[0] + "%"), 1)
+                .otherwise(2));
+    }
+}
@@ -1,7 +1,15 @@
 package br.com.cotrisoja.familyGroups.Repository;
 
 import br.com.cotrisoja.familyGroups.Entity.Type;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface TypeRepository extends JpaRepository<Type, Integer> {
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Type> findAll();
 }
@@ -15,6 +15,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -27,6 +29,7 @@ public class AssetService {
 	private final FarmerRepository farmerRepository;
 	private final AssetTypeRepository assetTypeRepository;
 	private final FarmerService farmerService;
+	private final FamilyGroupAreaService familyGroupAreaService;
 
 	public Optional<Asset> findById(String ownerRegistrationNumber, Long sapId) {
 		return assetRepository.findByOwner_RegistrationNumberAndIdSap(ownerRegistrationNumber, sapId);
@@ -34,6 +37,7 @@ public class AssetService {
 
 	public void delete(Asset asset) {
 		assetRepository.delete(asset);
+		familyGroupAreaService.refresh(Collections.singleton(areaGroupOf(asset)));
 	}
 
 	public Asset create(AssetRequestDTO dto) {
@@ -70,7 +74,9 @@ public class AssetService {
 				.cultivable(dto.cultivable())
 				.build();
 
-		return assetRepository.save(asset);
+		Asset saved = assetRepository.save(asset);
+		familyGroupAreaService.refresh(Collections.singleton(areaGroupOf(saved)));
+		return saved;
 	}
 
 	@Transactional
@@ -106,26 +112,30 @@ public class AssetService {
 		}
 
 		boolean ownerChanged = !current.getOwner().equals(newOwner);
-		long nextIdSap       = ownerChanged ? getNextIdSapForOwner(newOwner) : current.getIdSap();
-
-		Asset updated = Asset.builder()
-				.idSap(nextIdSap)
-				.owner(newOwner)
-				.description(dto.description())
-				.cultivable(cultivable)
-				.registration(dto.registration())
-				.car(dto.car())
-				.address(dto.address())
-				.amount(dto.amount())
-				.assetType(type)
-				.leasedTo(leasedTo)
-				.build();
+		Long previousGroup = areaGroupOf(current);
 
+		// mesmo dono: altera o bem carregado, para a gravação conferir a versão lida
+		Asset updated = current;
 		if (ownerChanged) {
 			assetRepository.delete(current);
+			updated = Asset.builder()
+					.idSap(getNextIdSapForOwner(newOwner))
+					.owner(newOwner)
+					.build();
 		}
 
-		return assetRepository.save(updated);
+		updated.setDescription(dto.description());
+		updated.setCultivable(cultivable);
+		updated.setRegistration(dto.registration());
+		updated.setCar(dto.car());
+		updated.setAddress(dto.address());
+		updated.setAmount(dto.amount());
+		updated.setAssetType(type);
+		updated.setLeasedTo(leasedTo);
+
+		Asset saved = assetRepository.save(updated);
+		familyGroupAreaService.refresh(Arrays.asList(previousGroup, areaGroupOf(saved)));
+		return saved;
 	}
 
 	public List<Asset> findAvailableAssetsByOwner(Farmer owner) {
@@ -144,9 +154,12 @@ public class AssetService {
 			throw new IllegalStateException("Proprietário e arrendatário não podem ser o mesmo produtor.");
 		}
 
+		Long previousGroup = areaGroupOf(asset);
 		asset.setLeasedTo(lessee);
 
-		return assetRepository.save(asset);
+		Asset saved = assetRepository.save(asset);
+		familyGroupAreaService.refresh(Arrays.asList(previousGroup, areaGroupOf(saved)));
+		return saved;
 	}
 
 	@Transactional
@@ -154,8 +167,12 @@ public class AssetService {
 		if (asset.getLeasedTo() == null)
 			throw new IllegalStateException("Bem não está arrendado.");
 
+		Long previousGroup = areaGroupOf(asset);
 		asset.setLeasedTo(null);
-		return assetRepository.save(asset);
+
+		Asset saved = assetRepository.save(asset);
+		familyGroupAreaService.refresh(Arrays.asList(previousGroup, areaGroupOf(saved)));
+		return saved;
 	}
 
 	public Optional<Map.Entry<String, Long>> parseAssetId(String assetId) {
@@ -179,6 +196,11 @@ public class AssetService {
 		}
 	}
 
+	// a área de um bem conta para o grupo do arrendatário, ou do proprietário se não estiver arrendado
+	private static Long areaGroupOf(Asset asset) {
+		return FamilyGroupAreaService.groupIdOf(asset.getLeasedTo() != null ? asset.getLeasedTo() : asset.getOwner());
+	}
+
 	public Long getNextIdSapForOwner(Farmer owner) {
 		return assetRepository.findMaxIdSapByOwner(owner.getRegistrationNumber())
 				.map(id -> id + 1)
@@ -0,0 +1,39 @@
+package br.com.cotrisoja.familyGroups.Service;
+
+import br.com.cotrisoja.familyGroups.Entity.Branch;
+import br.com.cotrisoja.familyGroups.Entity.User;
+import br.com.cotrisoja.familyGroups.Service.DataVersionService.Aggregate;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Listener JPA das entidades servidas com ETag: cada alteração incrementa, no commit, a versão do
+ * conjunto a que a entidade pertence. As gravações feitas por JDBC (importações e lotes de membros)
+ * passam pelo FamilyGroupAreaService, que incrementa a versão dos grupos.
+ */
+public class DataVersionListener {
+
+    private final ObjectProvider<DataVersionService> dataVersionService;
+
+    public DataVersionListener(ObjectProvider<DataVersionService> dataVersionService) {
+        this.dataVersionService = dataVersionService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        DataVersionService versions = dataVersionService.getIfAvailable();
+        if (versions == null) return;
+
+        if (entity instanceof User) {
+            versions.changedAfterCommit(Aggregate.USERS);
+        } else if (entity instanceof Branch) {
+            versions.changedAfterCommit(Aggregate.BRANCHES);
+        } else {
+            versions.changedAfterCommit(Aggregate.FAMILY_GROUPS);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package br.com.cotrisoja.familyGroups.Service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de versão dos conjuntos de dados servidos com ETag: cada alteração confirmada
+ * incrementa o contador do seu conjunto, e o ETag das listagens é formado pelos contadores de que
+ * elas dependem. Ficam em memória, como o índice de busca; o instante da inicialização entra no
+ * ETag para que uma reinicialização invalide o que os clientes guardaram.
+ * <p>
+ * O incremento acontece depois do commit e o ETag é lido antes da consulta: uma resposta pode
+ * sair com um ETag mais antigo que os dados (o cliente só recarrega sem precisar), nunca o contrário.
+ */
+@Service
+public class DataVersionService {
+
+    public enum Aggregate {
+        // grupos, produtores, bens, áreas e tipos: tudo o que aparece nos painéis de cultivo
+        FAMILY_GROUPS,
+        USERS,
+        BRANCHES
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Aggregate, AtomicLong> versions = new EnumMap<>(Aggregate.class);
+
+    public DataVersionService() {
+        for (Aggregate aggregate : Aggregate.values()) {
+            versions.put(aggregate, new AtomicLong());
+        }
+    }
+
+    // fraco: o Tomcat não comprime respostas com ETag forte
+    public String etag(String representation, Aggregate... aggregates) {
+        StringBuilder etag = new StringBuilder("W/\"").append(representation).append('-').append(epoch);
+        for (Aggregate aggregate : aggregates) {
+            etag.append('-').append(versions.get(aggregate).get());
+        }
+        return etag.append('"').toString();
+    }
+
+    // dentro de uma transação, vale a partir do commit; um rollback não muda nada
+    public void changedAfterCommit(Aggregate aggregate) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versions.get(aggregate).incrementAndGet();
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Aggregate> pending = (Set<Aggregate>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Aggregate> changed = EnumSet.noneOf(Aggregate.class);
+            TransactionSynchronizationManager.bindResource(this, changed);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changed.forEach(a -> versions.get(a).incrementAndGet());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DataVersionService.this);
+                }
+            });
+            pending = changed;
+        }
+        pending.add(aggregate);
+    }
+}
@@ -0,0 +1,126 @@
+package br.com.cotrisoja.familyGroups.Service.Export;
+
+import br.com.cotrisoja.familyGroups.Exception.BadRequestException;
+import br.com.cotrisoja.familyGroups.Repository.Batch.CultivationExportRepository;
+import br.com.cotrisoja.familyGroups.Repository.BranchRepository;
+import br.com.cotrisoja.familyGroups.Repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Exportação dos cultivos dos grupos em CSV, no formato dos arquivos importados: separador
+ * ";" e vírgula decimal, com BOM para o Excel reconhecer o UTF-8. As linhas são escritas à
+ * medida que são lidas do banco, então a memória usada não depende de quantos grupos entram.
+ */
+@Service
+@RequiredArgsConstructor
+public class CultivationExportService {
+
+    private static final String[] HEADER = {
+            "grupo", "matricula_principal", "principal", "carteira", "tecnico",
+            "area_total", "area_livre",
+            "canola", "canola_participacao",
+            "trigo", "trigo_participacao",
+            "milho_silagem", "milho_silagem_participacao",
+            "milho_grao", "milho_grao_participacao",
+            "feijao", "feijao_participacao",
+            "soja", "soja_participacao"
+    };
+
+    private static final String[] CULTIVATION_COLUMNS = {
+            "canola_area", "canola_area_participation",
+            "wheat_area", "wheat_area_participation",
+            "corn_silage_area", "corn_silage_area_participation",
+            "grain_corn_area", "grain_corn_area_participation",
+            "bean_area", "bean_area_participation",
+            "soybean_area", "soybean_area_participation"
+    };
+
+    // linhas entre cada envio ao cliente; a primeira vai logo que lida
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final CultivationExportRepository cultivationExportRepository;
+    private final BranchRepository branchRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // chamado antes de a resposta começar, para que filtros inválidos ainda virem 400
+    public void validate(Long branchId, Long userId) {
+        if (branchId != null && !branchRepository.existsById(branchId)) {
+            throw new BadRequestException("Branch not found");
+        }
+        if (userId != null && !userRepository.existsById(userId)) {
+            throw new BadRequestException("User not found");
+        }
+    }
+
+    public String filename(Long branchId, Long userId) {
+        StringBuilder name = new StringBuilder("cultivos");
+        if (branchId != null) name.append("-carteira-").append(branchId);
+        if (userId != null) name.append("-tecnico-").append(userId);
+        return name.append(".csv").toString();
+    }
+
+    public void writeCsv(Long branchId, Long userId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('\uFEFF');
+        writer.write(String.join(";", HEADER));
+        writer.write('\n');
+
+        long[] rows = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    cultivationExportRepository.forEachCultivation(branchId, userId, rs -> {
+                        try {
+                            writeRow(writer, rs);
+                            if (rows[0]++ % FLUSH_INTERVAL == 0) writer.flush();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void writeRow(Writer writer, ResultSet rs) throws SQLException, IOException {
+        StringBuilder line = new StringBuilder();
+        line.append(rs.getLong("id"));
+        appendText(line, rs.getString("principal_registration"));
+        appendText(line, rs.getString("principal_name"));
+        appendText(line, rs.getString("branch_name"));
+        appendText(line, rs.getString("technician_name"));
+
+        // grupos sem bens e cultivos nunca preenchidos saem como 0, como na consulta por carteira
+        appendNumber(line, rs.getDouble("total_area"));
+        appendNumber(line, rs.getDouble("free_area"));
+        for (String column : CULTIVATION_COLUMNS) {
+            appendNumber(line, rs.getDouble(column));
+        }
+
+        writer.append(line).append('\n');
+    }
+
+    private static void appendText(StringBuilder line, String value) {
+        line.append(';');
+        if (value == null) return;
+
+        if (value.indexOf(';') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+            line.append('"').append(value.replace("\"", "\"\"")).append('"');
+        } else {
+            line.append(value);
+        }
+    }
+
+    private static void appendNumber(StringBuilder line, double value) {
+        line.append(';').append(BigDecimal.valueOf(value).stripTrailingZeros().toPlainString().replace('.', ','));
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.cotrisoja.familyGroups.Service;
+
+import br.com.cotrisoja.familyGroups.Entity.FamilyGroup;
+import br.com.cotrisoja.familyGroups.Entity.FamilyGroupArea;
+import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import br.com.cotrisoja.familyGroups.Repository.FamilyGroupAreaRepository;
+import br.com.cotrisoja.familyGroups.Service.DataVersionService.Aggregate;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mantém a tabela family_group_area: cada alteração de bem ou de membros recalcula só os
+ * grupos afetados, e os painéis leem os totais prontos em vez de agregar a tabela de bens.
+ */
+@Service
+@RequiredArgsConstructor
+public class FamilyGroupAreaService {
+
+    private static final Logger log = LoggerFactory.getLogger(FamilyGroupAreaService.class);
+
+    // grupos recalculados por transação no rebuild
+    private static final int REBUILD_CHUNK = 1000;
+
+    private final FamilyGroupAreaRepository familyGroupAreaRepository;
+    private final DataVersionService dataVersionService;
+    private final PlatformTransactionManager transactionManager;
+
+    // ids nulos são ignorados; grupos excluídos perdem a linha
+    @Transactional
+    public void refresh(Collection<Long> familyGroupIds) {
+        Set<Long> ids = familyGroupIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) return;
+
+        // as alterações pendentes do contexto precisam estar no banco antes da agregação
+        familyGroupAreaRepository.flush();
+        write(ids);
+    }
+
+    /*
+     * Recalcula a tabela inteira depois das importações, em blocos de grupos, cada um na sua
+     * transação: as edições feitas enquanto isso esperam só pelo bloco dos seus grupos, e uma
+     * falha perde apenas o bloco em que ocorreu
+     */
+    public void rebuild() {
+        List<Long> ids = familyGroupAreaRepository.findAllFamilyGroupIds();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        int groups = 0;
+        for (int from = 0; from < ids.size(); from += REBUILD_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + REBUILD_CHUNK, ids.size()));
+            groups += transaction.execute(status -> write(chunk));
+        }
+        int orphans = transaction.execute(status -> familyGroupAreaRepository.deleteOrphans());
+        log.info("Áreas pré-calculadas de {} grupo(s) familiar(es); {} linha(s) de grupos excluídos removida(s).",
+                groups, orphans);
+    }
+
+    // a tabela se mantém a cada alteração; na inicialização só é preciso preenchê-la a primeira vez
+    @EventListener(ApplicationReadyEvent.class)
+    public void populateIfEmpty() {
+        if (familyGroupAreaRepository.count() > 0) return;
+        rebuild();
+    }
+
+    private int write(Collection<Long> ids) {
+        familyGroupAreaRepository.lockFamilyGroups(ids);
+        int merged = familyGroupAreaRepository.mergeForFamilyGroups(ids);
+        familyGroupAreaRepository.deleteWithoutAssets(ids);
+        dataVersionService.changedAfterCommit(Aggregate.FAMILY_GROUPS);
+        return merged;
+    }
+
+    public Map<Long, FamilyGroupArea> findByGroups(Collection<FamilyGroup> groups) {
+        List<Long> ids = groups.stream().map(FamilyGroup::getId).toList();
+        return familyGroupAreaRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(FamilyGroupArea::getFamilyGroupId, Function.identity()));
+    }
+
+    public Optional<FamilyGroupArea> findByGroup(Long familyGroupId) {
+        return familyGroupAreaRepository.findById(familyGroupId);
+    }
+
+    public static Long groupIdOf(Farmer farmer) {
+        return farmer != null && farmer.getFamilyGroup() != null ? farmer.getFamilyGroup().getId() : null;
+    }
+}
@@ -0,0 +1,306 @@
+package br.com.cotrisoja.familyGroups.Service;
+
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.MembershipBatchResponseDTO;
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.MembershipOperationDTO;
+import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+import br.com.cotrisoja.familyGroups.Exception.BadRequestException;
+import br.com.cotrisoja.familyGroups.Repository.Batch.ImportBatchRepository;
+import br.com.cotrisoja.familyGroups.Repository.Batch.MembershipBatchRepository;
+import br.com.cotrisoja.familyGroups.Repository.Batch.MembershipBatchRepository.FarmerMembership;
+import br.com.cotrisoja.familyGroups.Repository.Batch.MembershipBatchRepository.GroupState;
+import br.com.cotrisoja.familyGroups.Service.Search.TypeAheadIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Alterações de membros em lote: inclusões, remoções e trocas de principal de um ou mais grupos,
+ * aplicadas numa única transação com as mesmas regras de addMember, removeMember e
+ * changePrincipal do FamilyGroupService.
+ * <p>
+ * O estado é lido em quatro consultas, as operações são aplicadas em memória, na ordem recebida,
+ * e o resultado é gravado em blocos. Qualquer operação inválida desfaz o lote inteiro.
+ * <p>
+ * Antes de gravar, o lote confere que produtores e grupos alterados ainda estão na versão lida;
+ * se outra operação mexeu neles, o lote inteiro é refeito desde a leitura pelo OptimisticRetry.
+ */
+@Service
+@RequiredArgsConstructor
+public class FamilyGroupMembershipService {
+
+    public static final int MAX_OPERATIONS = 500;
+
+    private final MembershipBatchRepository membershipBatchRepository;
+    private final ImportBatchRepository importBatchRepository;
+    private final FamilyGroupService familyGroupService;
+    private final TypeAheadIndex typeAheadIndex;
+    private final OptimisticRetry optimisticRetry;
+
+    public MembershipBatchResponseDTO apply(List<MembershipOperationDTO> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new BadRequestException("Nenhuma operação informada");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new BadRequestException("No máximo " + MAX_OPERATIONS + " operações por lote");
+        }
+
+        return optimisticRetry.run(() -> applyAll(operations));
+    }
+
+    private MembershipBatchResponseDTO applyAll(List<MembershipOperationDTO> operations) {
+        Batch batch = load(operations);
+        for (int i = 0; i < operations.size(); i++) {
+            try {
+                batch.apply(operations.get(i));
+            } catch (BadRequestException e) {
+                throw new BadRequestException("Operação " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+
+        List<Long> affected = batch.write();
+        familyGroupService.membersChanged(affected);
+        typeAheadIndex.changedAfterCommit(batch.movedFarmers(), affected);
+
+        return new MembershipBatchResponseDTO(operations.size(), affected);
+    }
+
+    private Batch load(List<MembershipOperationDTO> operations) {
+        Set<String> farmerIds = new HashSet<>();
+        Set<Long> groupIds = new HashSet<>();
+        for (MembershipOperationDTO operation : operations) {
+            if (operation.farmerId() != null) farmerIds.add(operation.farmerId());
+            if (operation.familyGroupId() != null) groupIds.add(operation.familyGroupId());
+        }
+
+        Map<String, FarmerMembership> farmers = membershipBatchRepository.findFarmers(farmerIds);
+        Map<String, Long> groupByPrincipal = new HashMap<>(importBatchRepository.findGroupIdsByPrincipals(farmerIds));
+
+        farmers.values().forEach(f -> {
+            if (f.familyGroupId() != null) groupIds.add(f.familyGroupId());
+        });
+        groupIds.addAll(groupByPrincipal.values());
+        Map<Long, GroupState> groups = membershipBatchRepository.findGroups(groupIds);
+
+        // principais atuais dos grupos: continuam membros quando deixam de ser principais
+        Set<String> principals = new HashSet<>();
+        groups.values().forEach(g -> {
+            if (g.principal() != null && !farmers.containsKey(g.principal())) principals.add(g.principal());
+        });
+        Map<String, FarmerMembership> allFarmers = new HashMap<>(farmers);
+        Map<String, FarmerMembership> principalFarmers = membershipBatchRepository.findFarmers(principals);
+        allFarmers.putAll(principalFarmers);
+
+        // um principal que está em outro grupo é trazido de volta ao seu; esse grupo também muda
+        Set<Long> principalGroups = new HashSet<>();
+        principalFarmers.values().forEach(f -> {
+            if (f.familyGroupId() != null && !groups.containsKey(f.familyGroupId())) principalGroups.add(f.familyGroupId());
+        });
+        groups.putAll(membershipBatchRepository.findGroups(principalGroups));
+
+        return new Batch(allFarmers, groups, groupByPrincipal);
+    }
+
+    /*
+     * Estado em memória do lote. Grupos individuais criados durante o lote recebem ids negativos
+     * provisórios, trocados pelos ids reais na gravação
+     */
+    private class Batch {
+
+        private final Map<String, FarmerMembership> farmers;
+        private final Map<Long, GroupState> groups;
+        private final Map<String, Long> originalGroupOf = new HashMap<>();
+        private final Map<String, Long> groupOf = new HashMap<>();
+
+        private final Map<Long, String> originalPrincipalOf = new HashMap<>();
+        private final Map<Long, String> principalOf = new HashMap<>();
+        private final Map<Long, Integer> memberCount = new HashMap<>();
+        private final Map<String, Long> groupByPrincipal;
+
+        private final Set<Long> deleted = new HashSet<>();
+        private long nextNewGroup = -1;
+
+        Batch(Map<String, FarmerMembership> farmers, Map<Long, GroupState> groups, Map<String, Long> groupByPrincipal) {
+            this.farmers = farmers;
+            this.groups = groups;
+            this.groupByPrincipal = groupByPrincipal;
+
+            farmers.forEach((registration, farmer) -> {
+                originalGroupOf.put(registration, farmer.familyGroupId());
+                groupOf.put(registration, farmer.familyGroupId());
+            });
+            groups.forEach((id, group) -> {
+                originalPrincipalOf.put(id, group.principal());
+                principalOf.put(id, group.principal());
+                memberCount.put(id, group.memberCount());
+            });
+        }
+
+        void apply(MembershipOperationDTO operation) {
+            if (operation.type() == null) throw new BadRequestException("Tipo de operação não informado");
+
+            Long groupId = operation.familyGroupId();
+            if (groupId == null || groupId <= 0 || !principalOf.containsKey(groupId) || deleted.contains(groupId)) {
+                throw new BadRequestException("Grupo familiar " + groupId + " não encontrado");
+            }
+
+            String farmerId = operation.farmerId();
+            if (farmerId == null || !farmers.containsKey(farmerId)) {
+                throw new BadRequestException("Produtor " + farmerId + " não encontrado");
+            }
+
+            switch (operation.type()) {
+                case ADD -> add(groupId, farmerId);
+                case REMOVE -> remove(groupId, farmerId);
+                case CHANGE_PRINCIPAL -> changePrincipal(groupId, farmerId);
+            }
+        }
+
+        // mesma regra de Farmer.isValid: ativo, não bloqueado e sem grupo ou sozinho no seu
+        private void add(Long groupId, String farmerId) {
+            FarmerMembership farmer = farmers.get(farmerId);
+            Long current = groupOf.get(farmerId);
+
+            if (groupId.equals(current)) {
+                throw new BadRequestException("Produtor já faz parte do grupo");
+            }
+            boolean available = farmer.status() == StatusEnum.ACTIVE && !farmer.blocked()
+                    && (current == null || memberCount.getOrDefault(current, 0) < 2);
+            if (!available) {
+                throw new BadRequestException("Produtor não disponível");
+            }
+
+            move(farmerId, groupId);
+        }
+
+        // o removido volta para o grupo em que é principal, criado se ainda não existir
+        private void remove(Long groupId, String farmerId) {
+            if (farmerId.equals(principalOf.get(groupId))) {
+                throw new BadRequestException("Não é possível remover o produtor principal.");
+            }
+            if (!groupId.equals(groupOf.get(farmerId))) {
+                throw new BadRequestException("Produtor não é membro do grupo.");
+            }
+
+            Long soloGroup = groupByPrincipal.get(farmerId);
+            if (soloGroup == null || deleted.contains(soloGroup)) {
+                soloGroup = nextNewGroup--;
+                principalOf.put(soloGroup, farmerId);
+                memberCount.put(soloGroup, 0);
+                groupByPrincipal.put(farmerId, soloGroup);
+            }
+
+            move(farmerId, soloGroup);
+        }
+
+        private void changePrincipal(Long groupId, String farmerId) {
+            if (farmerId.equals(principalOf.get(groupId))) {
+                throw new BadRequestException("Produtor já é o principal do grupo.");
+            }
+            if (!groupId.equals(groupOf.get(farmerId))) {
+                throw new BadRequestException("Produtor não é membro do grupo.");
+            }
+
+            // o grupo em que o novo principal era principal deixa de existir
+            Long previousGroup = groupByPrincipal.get(farmerId);
+            if (previousGroup != null && !previousGroup.equals(groupId) && !deleted.contains(previousGroup)) {
+                if (memberCount.getOrDefault(previousGroup, 0) > 0) {
+                    throw new BadRequestException("O grupo familiar " + previousGroup
+                            + ", do qual o produtor é principal, ainda tem membros.");
+                }
+                deleted.add(previousGroup);
+            }
+
+            String oldPrincipal = principalOf.get(groupId);
+            if (oldPrincipal != null) {
+                if (groupOf.containsKey(oldPrincipal) && !groupId.equals(groupOf.get(oldPrincipal))) {
+                    move(oldPrincipal, groupId);
+                }
+                groupByPrincipal.remove(oldPrincipal, groupId);
+            }
+
+            principalOf.put(groupId, farmerId);
+            groupByPrincipal.put(farmerId, groupId);
+        }
+
+        private void move(String farmerId, Long groupId) {
+            Long current = groupOf.get(farmerId);
+            if (current != null) memberCount.merge(current, -1, Integer::sum);
+
+            memberCount.merge(groupId, 1, Integer::sum);
+            groupOf.put(farmerId, groupId);
+        }
+
+        Set<String> movedFarmers() {
+            Set<String> moved = new HashSet<>();
+            groupOf.forEach((farmerId, groupId) -> {
+                if (!Objects.equals(originalGroupOf.get(farmerId), groupId)) moved.add(farmerId);
+            });
+            return moved;
+        }
+
+        /*
+         * Grava o estado final e devolve os ids de todos os grupos afetados. A ordem respeita a
+         * unicidade do principal: grupos apagados liberam o principal antes da troca, e a troca
+         * libera o antigo principal antes de ele ganhar um grupo individual novo
+         */
+        List<Long> write() {
+            Set<Long> affected = new TreeSet<>();
+            Map<Long, List<String>> toExistingGroups = new HashMap<>();
+            Map<Long, List<String>> toNewGroups = new HashMap<>();
+            Map<String, Long> farmerVersions = new TreeMap<>();
+
+            groupOf.forEach((farmerId, groupId) -> {
+                Long original = originalGroupOf.get(farmerId);
+                if (Objects.equals(original, groupId)) return;
+
+                farmerVersions.put(farmerId, farmers.get(farmerId).version());
+
+                (groupId < 0 ? toNewGroups : toExistingGroups)
+                        .computeIfAbsent(groupId, g -> new ArrayList<>()).add(farmerId);
+                if (groupId > 0) affected.add(groupId);
+                if (original != null) affected.add(original);
+            });
+
+            Map<Long, String> principalChanges = new HashMap<>();
+            principalOf.forEach((id, principal) -> {
+                if (id > 0 && !deleted.contains(id) && !Objects.equals(originalPrincipalOf.get(id), principal)) {
+                    principalChanges.put(id, principal);
+                }
+            });
+            affected.addAll(principalChanges.keySet());
+
+            List<Long> deletedGroups = deleted.stream().filter(id -> id > 0).toList();
+            affected.addAll(deletedGroups);
+
+            // em ordem de chave, para dois lotes concorrentes travarem as linhas na mesma sequência
+            Map<Long, Long> groupVersions = new TreeMap<>();
+            affected.forEach(id -> {
+                // apagado por outra transação depois da leitura: tratado como qualquer versão antiga
+                GroupState group = groups.get(id);
+                if (group == null) throw new ObjectOptimisticLockingFailureException("FamilyGroup", id);
+                groupVersions.put(id, group.version());
+            });
+            membershipBatchRepository.claimFarmers(farmerVersions);
+            membershipBatchRepository.claimGroups(groupVersions);
+
+            importBatchRepository.moveFarmersToGroups(toExistingGroups);
+            membershipBatchRepository.deleteGroups(deletedGroups);
+            membershipBatchRepository.updatePrincipals(principalChanges);
+
+            Map<Long, String> newGroups = new HashMap<>();
+            principalOf.forEach((id, principal) -> {
+                if (id < 0 && !deleted.contains(id)) newGroups.put(id, principal);
+            });
+            Map<String, Long> created = importBatchRepository.insertFamilyGroups(newGroups.values());
+
+            Map<Long, List<String>> membersOfNewGroups = new HashMap<>();
+            toNewGroups.forEach((id, members) -> membersOfNewGroups.put(created.get(newGroups.get(id)), members));
+            importBatchRepository.moveFarmersToGroups(membersOfNewGroups);
+            affected.addAll(created.values());
+
+            return new ArrayList<>(affected);
+        }
+    }
+}
@@ -3,40 +3,72 @@ package br.com.cotrisoja.familyGroups.Service;
 import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.CultivationResponseDTO;
 import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.CultivationWithFreeAreaDTO;
 import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupRequestDTO;
-import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FreeAreaAggDTO;
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupResponseDTO;
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupSummaryDTO;
+import br.com.cotrisoja.familyGroups.DTO.Page.ScrollCursor;
 import br.com.cotrisoja.familyGroups.Entity.Branch;
 import br.com.cotrisoja.familyGroups.Entity.FamilyGroup;
+import br.com.cotrisoja.familyGroups.Entity.FamilyGroupArea;
 import br.com.cotrisoja.familyGroups.Entity.Farmer;
 import br.com.cotrisoja.familyGroups.Entity.User;
 import br.com.cotrisoja.familyGroups.Exception.BadRequestException;
+import br.com.cotrisoja.familyGroups.Exception.ConflictException;
 import br.com.cotrisoja.familyGroups.Repository.BranchRepository;
 import br.com.cotrisoja.familyGroups.Repository.FamilyGroupRepository;
 import br.com.cotrisoja.familyGroups.Repository.FarmerRepository;
 import br.com.cotrisoja.familyGroups.Repository.UserRepository;
+import br.com.cotrisoja.familyGroups.Repository.Spec.FamilyGroupSpecifications;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class FamilyGroupService {
 
+    private static final Logger log = LoggerFactory.getLogger(FamilyGroupService.class);
+
+    // grupos mantidos no contexto de persistência durante a exportação, antes de limpá-lo
+    private static final int EXPORT_CLEAR_INTERVAL = 200;
+
     private final FamilyGroupRepository familyGroupRepository;
     private final FarmerRepository farmerRepository;
     private final BranchRepository branchRepository;
     private final UserRepository userRepository;
+    private final FamilyGroupAreaService familyGroupAreaService;
+    private final EntityManager entityManager;
+    private final OptimisticRetry optimisticRetry;
+
+    /*
+     * create, addMember, removeMember, changePrincipal e updateCultivations rodam pelo
+     * OptimisticRetry: cada um na sua transação, repetido desde a leitura se outra operação alterar
+     * os mesmos produtores ou grupos antes do commit
+     */
 
-    @Transactional
     public FamilyGroup create(FamilyGroupRequestDTO familyGroupRequestDTO) {
+        return optimisticRetry.run(() -> doCreate(familyGroupRequestDTO));
+    }
+
+    private FamilyGroup doCreate(FamilyGroupRequestDTO familyGroupRequestDTO) {
         Farmer principal = farmerRepository.findById(familyGroupRequestDTO.principalId())
                 .orElseThrow(() -> new RuntimeException("Produtor principal não encontrado"));
 
-        if (principal.getFamilyGroup() != null && principal.getFamilyGroup().getMembers().size() < 2) {
+        Set<Long> affectedGroups = new HashSet<>();
+        affectedGroups.add(FamilyGroupAreaService.groupIdOf(principal));
+
+        if (principal.getFamilyGroup() != null && principal.getFamilyGroup().isSolo()) {
             FamilyGroup oldGroup = principal.getFamilyGroup();
 
             principal.setFamilyGroup(null);
@@ -62,16 +94,25 @@ public class FamilyGroupService {
         for (String memberId : familyGroupRequestDTO.membersId()) {
             Farmer farmer = farmerRepository.findById(memberId)
                     .orElseThrow(() -> new RuntimeException("Produtor " + memberId + " não encontrado"));
+            affectedGroups.add(FamilyGroupAreaService.groupIdOf(farmer));
             farmer.setFamilyGroup(newGroup);
             farmerRepository.save(farmer);
             validMembers.add(farmer);
         }
 
         newGroup.setMembers(validMembers);
-        return familyGroupRepository.save(newGroup);
+        newGroup = familyGroupRepository.save(newGroup);
+
+        affectedGroups.add(newGroup.getId());
+        membersChanged(affectedGroups);
+        return newGroup;
     }
 
     public FamilyGroup addMember(Long familyGroupId, String memberId) {
+        return optimisticRetry.run(() -> doAddMember(familyGroupId, memberId));
+    }
+
+    private FamilyGroup doAddMember(Long familyGroupId, String memberId) {
         FamilyGroup familyGroup = familyGroupRepository.findById(familyGroupId)
                 .orElseThrow(() -> new RuntimeException("Grupo familiar não encontrado"));
 
@@ -91,16 +132,22 @@ public class FamilyGroupService {
             throw new RuntimeException("Produtor já faz parte do grupo");
         }
 
+        Long previousGroup = FamilyGroupAreaService.groupIdOf(member);
+
         farmers.add(member);
         member.setFamilyGroup(familyGroup);
         familyGroup.setMembers(farmers);
 
-        return familyGroupRepository.save(familyGroup);
+        FamilyGroup saved = familyGroupRepository.save(familyGroup);
+        membersChanged(Arrays.asList(previousGroup, familyGroupId));
+        return saved;
     }
 
-    @Transactional
     public void removeMember(Long familyGroupId, String memberId) {
+        optimisticRetry.run(() -> doRemoveMember(familyGroupId, memberId));
+    }
 
+    private void doRemoveMember(Long familyGroupId, String memberId) {
         FamilyGroup oldGroup = familyGroupRepository.findById(familyGroupId)
                 .orElseThrow(() -> new RuntimeException("Grupo familiar não encontrado"));
 
@@ -129,11 +176,15 @@ public class FamilyGroupService {
 
         member.setFamilyGroup(soloGroup);
         farmerRepository.save(member);
+
+        membersChanged(Arrays.asList(familyGroupId, soloGroup.getId()));
     }
 
-    @Transactional
     public void changePrincipal(Long familyGroupId, String newPrincipalId) {
+        optimisticRetry.run(() -> doChangePrincipal(familyGroupId, newPrincipalId));
+    }
 
+    private void doChangePrincipal(Long familyGroupId, String newPrincipalId) {
         FamilyGroup targetGroup = familyGroupRepository.findById(familyGroupId)
                 .orElseThrow(() -> new RuntimeException("Grupo familiar não encontrado"));
 
@@ -146,9 +197,12 @@ public class FamilyGroupService {
         if (!targetGroup.getMembers().contains(newPrincipal))
             throw new IllegalStateException("Produtor não é membro do grupo.");
 
+        List<Long> affectedGroups = new ArrayList<>(List.of(familyGroupId));
+
         familyGroupRepository.findByPrincipal(newPrincipal)
                 .filter(g -> !g.getId().equals(familyGroupId))
                 .ifPresent(g -> {
+                    affectedGroups.add(g.getId());
                     newPrincipal.setFamilyGroup(null);
                     farmerRepository.save(newPrincipal);
 
@@ -170,8 +224,28 @@ public class FamilyGroupService {
         oldPrincipal.setFamilyGroup(targetGroup);
         farmerRepository.save(newPrincipal);
         farmerRepository.save(oldPrincipal);
+
+        membersChanged(affectedGroups);
+    }
+
+
+    // membros mudaram: recalcula a contagem e as áreas dos grupos afetados; ids nulos são ignorados
+    public void membersChanged(Collection<Long> familyGroupIds) {
+        List<Long> ids = familyGroupIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) return;
+
+        familyGroupRepository.recountMembers(ids);
+        familyGroupAreaService.refresh(ids);
     }
 
+    // acerta grupos criados antes da coluna existir; nas inicializações seguintes não há o que corrigir
+    @EventListener(ApplicationReadyEvent.class)
+    public void recountAllMembers() {
+        if (familyGroupRepository.countStaleMemberCounts() == 0) return;
+
+        int groups = familyGroupRepository.recountAllMembers();
+        log.info("Contagem de membros atualizada em {} grupo(s) familiar(es).", groups);
+    }
 
     public Page<FamilyGroup> findAll(Pageable pageable) {
         return familyGroupRepository.findAll(pageable);
@@ -181,6 +255,24 @@ public class FamilyGroupService {
         return familyGroupRepository.findAll();
     }
 
+    /**
+     * Percorre todos os grupos em ordem de id, entregando cada um já convertido. O contexto de
+     * persistência é limpo a cada {@value #EXPORT_CLEAR_INTERVAL} grupos, então a memória usada
+     * não depende do total de grupos.
+     */
+    @Transactional
+    public void exportAll(Consumer<FamilyGroupResponseDTO> consumer) {
+        try (Stream<FamilyGroup> familyGroups = familyGroupRepository.streamAll()) {
+            int[] count = {0};
+            familyGroups.forEach(familyGroup -> {
+                consumer.accept(FamilyGroupResponseDTO.fromEntity(familyGroup));
+                if (++count[0] % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+
     public CultivationResponseDTO getCultivation(Long familyGroupId) {
         FamilyGroup familyGroup = familyGroupRepository.findById(familyGroupId)
                 .orElseThrow(() -> new IllegalArgumentException("Grupo familiar com ID " + familyGroupId + " não encontrado"));
@@ -188,7 +280,20 @@ public class FamilyGroupService {
         return CultivationResponseDTO.fromEntity(familyGroup);
     }
 
-    public void updateCultivations(FamilyGroup familyGroup, CultivationResponseDTO cultivationDTO) {
+    // com a versão informada, só grava se ninguém alterou o grupo desde que o cliente o leu
+    public void updateCultivations(Long familyGroupId, CultivationResponseDTO cultivationDTO) {
+        optimisticRetry.run(() -> doUpdateCultivations(familyGroupId, cultivationDTO));
+    }
+
+    private void doUpdateCultivations(Long familyGroupId, CultivationResponseDTO cultivationDTO) {
+        FamilyGroup familyGroup = familyGroupRepository.findById(familyGroupId)
+                .orElseThrow(() -> new BadRequestException("Grupo familiar não encontrado."));
+
+        if (cultivationDTO.version() != null && !cultivationDTO.version().equals(familyGroup.getVersion())) {
+            throw new ConflictException("O grupo familiar foi alterado por outro usuário. Recarregue o cultivo e tente novamente.",
+                    "FamilyGroup", familyGroupId);
+        }
+
         familyGroup.setCanolaArea(cultivationDTO.canolaArea());
         familyGroup.setWheatArea(cultivationDTO.wheatArea());
         familyGroup.setCornSilageArea(cultivationDTO.cornSilageArea());
@@ -218,6 +323,26 @@ public class FamilyGroupService {
         return familyGroupRepository.findByValue(value, pageable);
     }
 
+    // search vazio: todos os grupos
+    public Window<FamilyGroup> scroll(String search, ScrollCursor cursor, int size) {
+        return familyGroupRepository.scroll(
+                FamilyGroupSpecifications.matchesValue(search), cursor.sort(), size, cursor.position());
+    }
+
+    public Page<FamilyGroupSummaryDTO> findSummaries(String search, Pageable pageable) {
+        return familyGroupRepository.findSummaries(FamilyGroupSpecifications.matchesValue(search), pageable);
+    }
+
+    // mesmo cursor de scroll (chave: id), então um token serve para as duas listagens
+    public Window<FamilyGroupSummaryDTO> scrollSummaries(String search, ScrollCursor cursor, int size) {
+        return familyGroupRepository.scrollSummaries(
+                FamilyGroupSpecifications.matchesValue(search), cursor.sort(), size, cursor.position());
+    }
+
+    public long count(String search) {
+        return familyGroupRepository.count(FamilyGroupSpecifications.matchesValue(search));
+    }
+
     public List<Farmer> findLessorsByFamilyGroup(FamilyGroup familyGroup) {
         return familyGroupRepository.findLessorsByFamilyGroup(familyGroup);
     }
@@ -235,71 +360,47 @@ public class FamilyGroupService {
         Branch branch = branchRepository.findById(branchId)
                 .orElseThrow(() -> new BadRequestException("Branch not found"));
 
-        List<FamilyGroup> groups = familyGroupRepository.findByBranch(branch);
-
-        Map<Long, Double> areaMap = familyGroupRepository.getFreeAreaForGroups(groups)
-                .stream()
-                .collect(Collectors.toMap(
-                        FreeAreaAggDTO::familyGroupId,
-                        FreeAreaAggDTO::freeArea));
-
-        Map<Long, Double> totalAreaMap = familyGroupRepository.getAreaForGroups(groups)
-                .stream()
-                .collect(Collectors.toMap(
-                        FreeAreaAggDTO::familyGroupId,
-                        FreeAreaAggDTO::freeArea
-                ));
-
-        return groups.stream()
-                .map(fg -> new CultivationWithFreeAreaDTO(
-                        fg.getId(),
-                        areaMap.getOrDefault(fg.getId(), 0D),
-                        totalAreaMap.getOrDefault(fg.getId(), 0D),
-                        (CultivationResponseDTO.fromEntity(fg))
-                ))
-                .toList();
+        return toCultivations(familyGroupRepository.findByBranch(branch));
     }
 
     public List<CultivationWithFreeAreaDTO> getCultivationsByUser(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new BadRequestException("User not found"));
 
-        List<FamilyGroup> groups = familyGroupRepository.findByUser(user);
-
-        Map<Long, Double> areaMap = familyGroupRepository.getFreeAreaForGroups(groups)
-                .stream()
-                .collect(Collectors.toMap(
-                        FreeAreaAggDTO::familyGroupId,
-                        FreeAreaAggDTO::freeArea));
-
-        Map<Long, Double> totalAreaMap = familyGroupRepository.getAreaForGroups(groups)
-                .stream()
-                .collect(Collectors.toMap(
-                        FreeAreaAggDTO::familyGroupId,
-                        FreeAreaAggDTO::freeArea
-                ));
-
-        return groups.stream()
-                .map(fg -> new CultivationWithFreeAreaDTO(
-                        fg.getId(),
-                        areaMap.getOrDefault(fg.getId(), 0D),
-                        totalAreaMap.getOrDefault(fg.getId(), 0D),
-                        (CultivationResponseDTO.fromEntity(fg))
-                ))
-                .toList();
+        return toCultivations(familyGroupRepository.findByUser(user));
     }
 
+    // null quando o grupo não tem bens
     public Double getFreeArea(Long familyGroupId) {
         FamilyGroup familyGroup = familyGroupRepository.findById(familyGroupId)
                 .orElseThrow(() -> new BadRequestException("Family group not found"));
 
-        return familyGroupRepository.getFreeAreaForGroup(familyGroup);
+        return familyGroupAreaService.findByGroup(familyGroup.getId())
+                .map(FamilyGroupArea::getCultivableArea)
+                .orElse(null);
+    }
+
+    private List<CultivationWithFreeAreaDTO> toCultivations(List<FamilyGroup> groups) {
+        Map<Long, FamilyGroupArea> areas = familyGroupAreaService.findByGroups(groups);
+
+        return groups.stream()
+                .map(fg -> {
+                    FamilyGroupArea area = areas.get(fg.getId());
+                    return new CultivationWithFreeAreaDTO(
+                            fg.getId(),
+                            area != null ? area.getFreeArea() : 0D,
+                            area != null ? area.getTotalArea() : 0D,
+                            (CultivationResponseDTO.fromEntity(fg))
+                    );
+                })
+                .toList();
     }
 
     public void removePrincipal(FamilyGroup familyGroup) {
         if (familyGroup != null) {
             if (familyGroup.getMembers().isEmpty()) {
                 familyGroupRepository.delete(familyGroup);
+                membersChanged(List.of(familyGroup.getId()));
             } else {
                 Farmer newPrincipal = familyGroup.getMembers().getFirst();
                 changePrincipal(familyGroup.getId(), newPrincipal.getRegistrationNumber());
@@ -1,14 +1,26 @@
 package br.com.cotrisoja.familyGroups.Service;
 
 import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerRequestDTO;
+import br.com.cotrisoja.familyGroups.DTO.Page.ScrollCursor;
 import br.com.cotrisoja.familyGroups.Entity.*;
 import br.com.cotrisoja.familyGroups.Repository.*;
+import br.com.cotrisoja.familyGroups.Repository.Batch.FarmerSearchRepository;
+import br.com.cotrisoja.familyGroups.Repository.Spec.FarmerSpecifications;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -17,12 +29,32 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class FarmerService {
 
+    private static final Logger log = LoggerFactory.getLogger(FarmerService.class);
+
     private final FarmerRepository farmerRepository;
     private final FamilyGroupRepository familyGroupRepository;
     private final UserRepository userRepository;
     private final TypeRepository typeRepository;
     private final BranchRepository branchRepository;
     private final FamilyGroupService familyGroupService;
+    private final FarmerFingerprintRepository farmerFingerprintRepository;
+    private final FarmerSearchRepository farmerSearchRepository;
+
+    // sem os índices a busca continua correta, só mais lenta
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareSearch() {
+        int backfilled = farmerSearchRepository.backfillSearchNames();
+        if (backfilled > 0) {
+            log.info("Nome de busca preenchido para {} produtor(es).", backfilled);
+        }
+
+        if (!farmerSearchRepository.supportsTrigramIndexes()) return;
+        try {
+            farmerSearchRepository.createTrigramIndexes();
+        } catch (DataAccessException e) {
+            log.warn("Não foi possível criar os índices de trigramas da busca de produtores: {}", e.getMessage());
+        }
+    }
 
     public Farmer createFarmer(FarmerRequestDTO farmerRequestDTO) {
         FamilyGroup familyGroup = null;
@@ -51,7 +83,12 @@ public class FarmerService {
         }
 
         Farmer farmer = farmerRequestDTO.toEntity(familyGroup, user, type, branch);
-        return farmerRepository.save(farmer);
+        Farmer saved = farmerRepository.save(farmer);
+
+        if (familyGroup != null) {
+            familyGroupService.membersChanged(List.of(familyGroup.getId()));
+        }
+        return saved;
     }
 
     @Transactional
@@ -133,6 +170,14 @@ public class FarmerService {
 
         Farmer newFarmer = farmerRepository.save(farmer);
 
+        if (hasGroupChanged) {
+            familyGroupService.membersChanged(Arrays.asList(
+                    oldFamilyGroup != null ? oldFamilyGroup.getId() : null, newFamilyGroupId));
+        }
+
+        // edição manual: a próxima importação do farmer_update.csv volta a aplicar a linha deste produtor
+        farmerFingerprintRepository.deleteById(newFarmer.getRegistrationNumber());
+
         if (hasGroupChanged &&
                 oldFamilyGroup != null &&
                 oldFamilyGroup.getPrincipal().equals(newFarmer)
@@ -230,4 +275,74 @@ public class FarmerService {
     public Page<Farmer> findByType(Type type, Pageable pageable) {
         return farmerRepository.findByType(type, pageable);
     }
+
+    public Window<Farmer> scroll(Specification<Farmer> spec, ScrollCursor cursor, int size) {
+        return farmerRepository.scroll(spec, cursor.sort(), size, cursor.position());
+    }
+
+    public long count(Specification<Farmer> spec) {
+        return farmerRepository.count(spec);
+    }
+
+    /* listagens em projeção (view minimal ou summary): mesmos filtros, só as colunas da projeção */
+
+    public <T> Page<T> findAll(Class<T> projection, Specification<Farmer> spec, Pageable pageable) {
+        return farmerRepository.findAllAs(projection, spec, pageable);
+    }
+
+    public <T> Window<T> scroll(Class<T> projection, Specification<Farmer> spec, ScrollCursor cursor, int size) {
+        return farmerRepository.scrollAs(projection, spec, cursor.sort(), size, cursor.position());
+    }
+
+    public <T> Optional<T> findById(Class<T> projection, String farmerRegistration) {
+        return farmerRepository.findAllAs(projection,
+                        (r, q, cb) -> cb.equal(r.get("registrationNumber"), farmerRegistration), Sort.unsorted())
+                .stream()
+                .findFirst();
+    }
+
+    // na ordem de FamilyGroup.members
+    public <T> List<T> findByFamilyGroup(Class<T> projection, Long familyGroupID) {
+        if (!familyGroupRepository.existsById(familyGroupID)) {
+            throw new RuntimeException("Grupo familiar não encontrado");
+        }
+
+        return farmerRepository.findAllAs(projection,
+                (r, q, cb) -> cb.equal(r.get("familyGroup").get("id"), familyGroupID), Sort.by("name"));
+    }
+
+    /* filtros da paginação por cursor, equivalentes às buscas paginadas acima */
+
+    public Specification<Farmer> availableFilter(String search) {
+        return FarmerSpecifications.available().and(FarmerSpecifications.nameContainsTokens(search));
+    }
+
+    public Specification<Farmer> filter(String value, Long typeId) {
+        boolean hasValue = value != null && !value.isBlank();
+
+        if (hasValue && typeId != null) return FarmerSpecifications.matchesValueAndType(value, typeId);
+        if (hasValue) return FarmerSpecifications.matchesValue(value);
+        if (typeId != null) return (r, q, cb) -> cb.equal(r.get("type").get("id"), typeId.intValue());
+        return (r, q, cb) -> cb.conjunction();
+    }
+
+    // técnico nulo: produtores sem técnico
+    public Specification<Farmer> technicianFilter(User technician, Integer typeId, String search) {
+        return FarmerSpecifications.hasTechnician(technician)
+                .and(FarmerSpecifications.hasType(findType(typeId)))
+                .and(FarmerSpecifications.nameContainsTokens(search));
+    }
+
+    public Specification<Farmer> branchFilter(Branch branch, Integer typeId, String search) {
+        return FarmerSpecifications.hasBranch(branch)
+                .and(FarmerSpecifications.hasType(findType(typeId)))
+                .and(FarmerSpecifications.nameContainsTokens(search));
+    }
+
+    private Type findType(Integer typeId) {
+        if (typeId == null) return null;
+
+        return typeRepository.findById(typeId)
+                .orElseThrow(() -> new IllegalArgumentException("Tipo de produtor não encontrado."));
+    }
 }
@@ -0,0 +1,243 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+import br.com.cotrisoja.familyGroups.Entity.AssetType;
+import br.com.cotrisoja.familyGroups.Repository.AssetTypeRepository;
+import br.com.cotrisoja.familyGroups.Repository.FarmerRepository;
+import br.com.cotrisoja.familyGroups.Repository.Batch.ImportBatchRepository;
+import br.com.cotrisoja.familyGroups.Repository.Batch.ImportBatchRepository.AssetKey;
+import br.com.cotrisoja.familyGroups.Repository.Batch.ImportBatchRepository.AssetWrite;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportMetrics.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Importação do assets.csv. Cada bloco é dividido por proprietário em partições
+ * disjuntas, gravadas em paralelo, cada uma na sua própria transação. Como duas
+ * partições nunca tocam o mesmo bem, os workers não disputam as mesmas linhas.
+ */
+@Service
+public class AssetDataImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetDataImporter.class);
+    private static final String SENTINEL_REGISTRATION = "-1";
+
+    private final AssetTypeRepository assetTypeRepository;
+    private final FarmerRepository farmerRepository;
+    private final ImportBatchRepository importBatchRepository;
+    private final ImportChunkRunner chunkRunner;
+    private final ImportMetrics metrics;
+    private final TransactionTemplate workerTransaction;
+    private final Executor assetImportExecutor;
+    private final int workers;
+
+    public AssetDataImporter(AssetTypeRepository assetTypeRepository,
+                             FarmerRepository farmerRepository,
+                             ImportBatchRepository importBatchRepository,
+                             ImportChunkRunner chunkRunner,
+                             ImportMetrics metrics,
+                             PlatformTransactionManager transactionManager,
+                             @Qualifier("assetImportExecutor") Executor assetImportExecutor,
+                             @Value("${import.asset-workers:4}") int workers) {
+        this.assetTypeRepository = assetTypeRepository;
+        this.farmerRepository = farmerRepository;
+        this.importBatchRepository = importBatchRepository;
+        this.chunkRunner = chunkRunner;
+        this.metrics = metrics;
+        this.assetImportExecutor = assetImportExecutor;
+        this.workers = Math.max(workers, 1);
+
+        // o worker pode acabar rodando na thread do leitor, que já está dentro da transação do bloco
+        this.workerTransaction = new TransactionTemplate(transactionManager);
+        this.workerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public ImportResult importFile(ImportSpool spool, ImportProgress progress) throws IOException {
+        Set<Long> assetTypeIds = assetTypeRepository.findAll().stream()
+                .map(AssetType::getId)
+                .collect(Collectors.toSet());
+        String sentinel = farmerRepository.existsById(SENTINEL_REGISTRATION) ? SENTINEL_REGISTRATION : null;
+
+        return chunkRunner.run(spool, 1, 1, progress, new ImportChunkRunner.ChunkHandler() {
+            private final List<AssetDataRow> rows = new ArrayList<>();
+
+            @Override
+            public boolean row(CsvRecord record) {
+                try {
+                    rows.add(AssetDataRow.parse(record));
+                    return true;
+                } catch (NumberFormatException e) {
+                    progress.error("invalid_ids", record);
+                    return false;
+                }
+            }
+
+            @Override
+            public int endChunk() {
+                int failed = writeChunk(rows, assetTypeIds, sentinel, progress);
+                rows.clear();
+                return failed;
+            }
+        });
+    }
+
+    // mesma resolução da importação; cada bem conta uma vez, pela primeira linha em que aparece
+    public ImportPreview preview(ImportSpool spool) throws IOException {
+        Set<Long> assetTypeIds = assetTypeRepository.findAll().stream()
+                .map(AssetType::getId)
+                .collect(Collectors.toSet());
+        String sentinel = farmerRepository.existsById(SENTINEL_REGISTRATION) ? SENTINEL_REGISTRATION : null;
+
+        ImportPreview preview = new ImportPreview();
+        Set<AssetKey> seen = new HashSet<>();
+
+        preview.rows(chunkRunner.scan(spool, new ImportChunkRunner.ChunkHandler() {
+            private final List<AssetDataRow> rows = new ArrayList<>();
+
+            @Override
+            public boolean row(CsvRecord record) {
+                try {
+                    rows.add(AssetDataRow.parse(record));
+                    return true;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public int endChunk() {
+                Set<String> existing = importBatchRepository.findFarmerGroups(registrationsOf(rows)).keySet();
+                Set<AssetKey> keys = new HashSet<>();
+                int failed = 0;
+
+                for (AssetDataRow row : rows) {
+                    AssetWrite write = resolve(row, existing, assetTypeIds, sentinel, ImportProgress.NONE);
+                    if (write == null) {
+                        failed++;
+                        continue;
+                    }
+
+                    AssetKey key = new AssetKey(write.ownerRegistration(), write.idSap());
+                    if (seen.add(key)) keys.add(key);
+                }
+
+                long updated = importBatchRepository.findAssetKeys(keys).size();
+                preview.assets(keys.size() - updated, updated);
+                rows.clear();
+                return failed;
+            }
+        }));
+        return preview;
+    }
+
+    private int writeChunk(List<AssetDataRow> rows, Set<Long> assetTypeIds, String sentinel, ImportProgress progress) {
+        if (rows.isEmpty()) return 0;
+
+        Set<String> existing = metrics.time(Stage.LOOKUP,
+                () -> importBatchRepository.findFarmerGroups(registrationsOf(rows)).keySet());
+
+        // por partição, a última linha de cada (proprietário, idSap) vence, como no processamento sequencial
+        List<Map<String, AssetWrite>> partitions = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) partitions.add(new TreeMap<>());
+
+        int failed = 0;
+        for (AssetDataRow row : rows) {
+            AssetWrite write = resolve(row, existing, assetTypeIds, sentinel, progress);
+            if (write == null) {
+                failed++;
+                continue;
+            }
+
+            int partition = Math.floorMod(write.ownerRegistration().hashCode(), workers);
+            partitions.get(partition).put(write.ownerRegistration() + '\u0000' + write.idSap(), write);
+        }
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (Map<String, AssetWrite> partition : partitions) {
+            if (partition.isEmpty()) continue;
+
+            // chaves ordenadas: a ordem dos locks é sempre a mesma
+            List<AssetWrite> writes = new ArrayList<>(partition.values());
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> metrics.time(Stage.ASSET_UPSERT,
+                            () -> workerTransaction.execute(status -> importBatchRepository.upsertAssets(writes))),
+                    assetImportExecutor));
+        }
+
+        // se uma partição falhar, as outras já podem ter confirmado; o bloco inteiro é refeito
+        // na retomada, o que é seguro porque a gravação é um upsert
+        try {
+            int inserted = 0;
+            for (CompletableFuture<Integer> future : futures) {
+                inserted += future.join();
+            }
+            log.debug("Bloco de bens gravado: {} linhas, {} novos.", rows.size(), inserted);
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return failed;
+    }
+
+    private static Set<String> registrationsOf(List<AssetDataRow> rows) {
+        Set<String> registrations = new HashSet<>();
+        for (AssetDataRow row : rows) {
+            registrations.add(row.registration());
+            if (!row.altRegistration().isEmpty()) registrations.add(row.altRegistration());
+        }
+        return registrations;
+    }
+
+    private AssetWrite resolve(AssetDataRow row,
+                               Set<String> existing,
+                               Set<Long> assetTypeIds,
+                               String sentinel,
+                               ImportProgress progress) {
+        if (!assetTypeIds.contains(row.assetTypeId())) {
+            progress.error("asset_type_not_found", row);
+            return null;
+        }
+
+        if (!existing.contains(row.registration())) {
+            progress.error("farmer_not_found", row);
+            return null;
+        }
+
+        String owner;
+        String leasedTo = null;
+
+        if (row.isLeased()) {
+            boolean hasAlt = !row.altRegistration().isEmpty() && existing.contains(row.altRegistration());
+            owner = hasAlt ? row.altRegistration() : sentinel;
+            leasedTo = row.registration();
+        } else {
+            owner = row.registration();
+        }
+
+        if (owner == null) {
+            progress.error("owner_not_found", row);
+            return null;
+        }
+
+        return new AssetWrite(
+                row.idSap(),
+                owner,
+                leasedTo,
+                row.assetTypeId(),
+                row.description(),
+                row.address(),
+                row.amount()
+        );
+    }
+}
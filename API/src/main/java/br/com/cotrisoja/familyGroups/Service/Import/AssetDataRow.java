@@ -0,0 +1,35 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+/**
+ * Uma linha do assets.csv já separada em colunas.
+ */
+public record AssetDataRow(
+        String registration,
+        long idSap,
+        long assetTypeId,
+        String description,
+        long category,
+        double amount,
+        String address,
+        String altRegistration
+) {
+    private static final long LEASED_CATEGORY = 2;
+
+    // lança NumberFormatException se idSap, tipo ou categoria forem inválidos
+    public static AssetDataRow parse(CsvRecord row) {
+        return new AssetDataRow(
+                row.get(0),
+                row.getLong(1),
+                row.getLong(2),
+                row.get(3),
+                row.getLong(4),
+                row.getDouble(5, "amount"),
+                row.get(6),
+                row.get(7)
+        );
+    }
+
+    public boolean isLeased() {
+        return category == LEASED_CATEGORY;
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Leitor de CSV em streaming: lê a entrada em blocos de tamanho fixo e expõe cada linha
+ * pelo mesmo {@link CsvRecord}, sem materializar o arquivo nem criar um array por linha.
+ */
+public final class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final CsvRecord record = new CsvRecord();
+
+    private int position;
+    private int limit;
+    private long lineNumber;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    public boolean next() throws IOException {
+        record.reset();
+        boolean hasData = false;
+
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+
+                if (limit <= 0) {
+                    limit = 0;
+                    if (!hasData) return false;
+
+                    record.stripTrailingCarriageReturn();
+                    lineNumber++;
+                    return true;
+                }
+            }
+
+            hasData = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            record.append(buffer, start, position - start);
+
+            if (position < limit) {
+                position++;
+                record.stripTrailingCarriageReturn();
+                lineNumber++;
+                return true;
+            }
+        }
+    }
+
+    public CsvRecord record() {
+        return record;
+    }
+
+    // número da linha atual no arquivo, contando o cabeçalho
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
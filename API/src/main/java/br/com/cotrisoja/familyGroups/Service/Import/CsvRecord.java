@@ -0,0 +1,198 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+import java.util.Arrays;
+
+/**
+ * Visão reutilizável de uma linha do CSV (separador ';').
+ * O {@link CsvReader} reaproveita a mesma instância a cada linha, então os valores
+ * devem ser copiados (via {@link #get(int)}) se precisarem sobreviver à próxima leitura.
+ */
+public final class CsvRecord {
+
+    private static final char DELIMITER = ';';
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private char[] chars = new char[256];
+    private int length;
+
+    private int[] delimiters = new int[32];
+    private int delimiterCount;
+
+    private String invalidField;
+
+    void reset() {
+        length = 0;
+        delimiterCount = 0;
+        invalidField = null;
+    }
+
+    void append(char[] source, int offset, int count) {
+        ensureCapacity(length + count);
+        for (int i = offset; i < offset + count; i++) {
+            char c = source[i];
+            if (c == DELIMITER) {
+                if (delimiterCount == delimiters.length) {
+                    delimiters = Arrays.copyOf(delimiters, delimiters.length * 2);
+                }
+                delimiters[delimiterCount++] = length;
+            }
+            chars[length++] = c;
+        }
+    }
+
+    void stripTrailingCarriageReturn() {
+        if (length > 0 && chars[length - 1] == '\r') {
+            length--;
+        }
+    }
+
+    public int size() {
+        return delimiterCount + 1;
+    }
+
+    public boolean isBlank() {
+        return length == 0 || (delimiterCount == 0 && isEmpty(0));
+    }
+
+    public boolean isEmpty(int index) {
+        if (index >= size()) return true;
+        return trimmedStart(index) == trimmedEnd(index);
+    }
+
+    public String get(int index) {
+        if (index >= size()) return "";
+        int start = trimmedStart(index);
+        return new String(chars, start, trimmedEnd(index) - start);
+    }
+
+    public boolean equalsIgnoreCase(int index, String value) {
+        if (index >= size()) return value.isEmpty();
+        int start = trimmedStart(index);
+        int len = trimmedEnd(index) - start;
+        if (len != value.length()) return false;
+
+        for (int i = 0; i < len; i++) {
+            char a = chars[start + i];
+            char b = value.charAt(i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) return false;
+        }
+        return true;
+    }
+
+    public long getLong(int index) {
+        int start = index < size() ? trimmedStart(index) : 0;
+        int end = index < size() ? trimmedEnd(index) : 0;
+        if (start == end) {
+            throw new NumberFormatException("Valor vazio na coluna " + index);
+        }
+
+        boolean negative = chars[start] == '-';
+        int i = (negative || chars[start] == '+') ? start + 1 : start;
+        if (i == end || end - i > 18) {
+            return Long.parseLong(get(index));
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Valor inválido na coluna " + index + ": " + get(index));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Lê um decimal aceitando ',' ou '.' como separador. Valores vazios viram 0.0;
+     * valores inválidos também viram 0.0 e ficam marcados em {@link #invalidField()}.
+     */
+    public double getDouble(int index, String field) {
+        if (index >= size()) return 0.0;
+
+        int start = trimmedStart(index);
+        int end = trimmedEnd(index);
+        if (start == end) return 0.0;
+
+        boolean negative = chars[start] == '-';
+        int i = (negative || chars[start] == '+') ? start + 1 : start;
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (scale >= 0) scale++;
+            } else if ((c == ',' || c == '.') && scale < 0) {
+                scale = 0;
+            } else {
+                return parseDoubleSlow(index, field);
+            }
+        }
+
+        if (digits == 0 || digits > 18) {
+            return parseDoubleSlow(index, field);
+        }
+
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleSlow(int index, String field) {
+        String raw = get(index);
+        try {
+            return Double.parseDouble(raw.replace(",", "."));
+        } catch (NumberFormatException e) {
+            markInvalid(field);
+            return 0.0;
+        }
+    }
+
+    void markInvalid(String field) {
+        if (invalidField == null) invalidField = field;
+    }
+
+    // primeiro campo da linha que não pôde ser convertido, ou null
+    public String invalidField() {
+        return invalidField;
+    }
+
+    private int start(int index) {
+        return index == 0 ? 0 : delimiters[index - 1] + 1;
+    }
+
+    private int end(int index) {
+        return index < delimiterCount ? delimiters[index] : length;
+    }
+
+    private int trimmedStart(int index) {
+        int start = start(index);
+        int end = end(index);
+        while (start < end && chars[start] <= ' ') start++;
+        return start;
+    }
+
+    private int trimmedEnd(int index) {
+        int start = start(index);
+        int end = end(index);
+        while (end > start && chars[end - 1] <= ' ') end--;
+        return end;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,332 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+import br.com.cotrisoja.familyGroups.Entity.Branch;
+import br.com.cotrisoja.familyGroups.Entity.User;
+import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+import br.com.cotrisoja.familyGroups.Repository.Batch.ImportBatchRepository;
+import br.com.cotrisoja.familyGroups.Repository.Batch.ImportBatchRepository.GroupAreaDelta;
+import br.com.cotrisoja.familyGroups.Repository.Batch.ImportBatchRepository.NewFarmer;
+import br.com.cotrisoja.familyGroups.Repository.BranchRepository;
+import br.com.cotrisoja.familyGroups.Repository.UserRepository;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportMetrics.Stage;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Importação do data.csv em lotes: cada bloco de linhas é resolvido em memória
+ * a partir de poucas consultas, gravado com comandos JDBC em batch e confirmado
+ * na sua própria transação. A associação aos grupos é acumulada durante a segunda
+ * passada e gravada uma única vez por grupo.
+ */
+@Service
+@RequiredArgsConstructor
+public class FarmerDataImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(FarmerDataImporter.class);
+    private static final String NO_TECHNICIAN = "SEM TECNICO";
+
+    private final BranchRepository branchRepository;
+    private final UserRepository userRepository;
+    private final ImportBatchRepository importBatchRepository;
+    private final ImportChunkRunner chunkRunner;
+    private final ImportMetrics metrics;
+
+    public ImportResult importFile(ImportSpool spool, ImportProgress progress) throws IOException {
+        ReferenceData refs = new ReferenceData();
+
+        log.info("Inserindo dados de produtores...");
+        ImportResult inserted = chunkRunner.run(spool, 1, 2, progress, new RowBuffer(true, progress, chunk -> insertFarmers(chunk, refs)));
+
+        log.info("Associando produtores aos grupos familiares...");
+        GroupAggregation aggregation = new GroupAggregation(progress);
+        ImportResult associated = chunkRunner.runAggregated(spool, 2, 2, progress,
+                new RowBuffer(false, progress, aggregation::add), aggregation::write);
+
+        return new ImportResult(
+                Math.max(inserted.rowsProcessed(), associated.rowsProcessed()),
+                inserted.rowsFailed() + associated.rowsFailed()
+        );
+    }
+
+    /**
+     * Simula as duas passadas sem gravar nada: grupos ainda não criados são identificados
+     * pela matrícula do principal, e cada produtor tem seu grupo inicial comparado com o final.
+     */
+    public ImportPreview preview(ImportSpool spool) throws IOException {
+        ImportPreview preview = new ImportPreview();
+        Set<String> created = new HashSet<>();
+        Set<String> newGroupPrincipals = new HashSet<>();
+        Map<String, String> startGroup = new HashMap<>();
+        Map<String, String> endGroup = new HashMap<>();
+
+        preview.rows(chunkRunner.scan(spool, new RowBuffer(true, ImportProgress.NONE, chunk -> {
+            Set<String> registrations = new HashSet<>();
+            chunk.forEach(row -> registrations.add(row.registration()));
+            Map<String, Long> groupByFarmer = importBatchRepository.findFarmerGroups(registrations);
+
+            for (FarmerDataRow row : chunk) {
+                String registration = row.registration();
+                if (!groupByFarmer.containsKey(registration)) {
+                    created.add(registration);
+                }
+
+                if (row.isPrincipal() && groupByFarmer.get(registration) == null && newGroupPrincipals.add(registration)) {
+                    startGroup.put(registration, null);
+                    endGroup.put(registration, newGroupKey(registration));
+                }
+            }
+            return 0;
+        })));
+
+        Set<String> groupsWithAreas = new HashSet<>();
+        preview.rows(chunkRunner.scan(spool, new RowBuffer(false, ImportProgress.NONE, chunk -> {
+            Set<String> principals = new HashSet<>();
+            Set<String> registrations = new HashSet<>();
+            for (FarmerDataRow row : chunk) {
+                principals.add(row.principalRegistration());
+                registrations.add(row.registration());
+            }
+            registrations.addAll(principals);
+
+            Map<String, Long> groupByFarmer = importBatchRepository.findFarmerGroups(registrations);
+            Map<String, Long> groupByPrincipal = importBatchRepository.findGroupIdsByPrincipals(principals);
+            int failed = 0;
+
+            for (FarmerDataRow row : chunk) {
+                String registration = row.registration();
+                String principal = row.principalRegistration();
+                boolean farmerExists = groupByFarmer.containsKey(registration) || created.contains(registration);
+                boolean principalExists = groupByFarmer.containsKey(principal) || created.contains(principal);
+                if (!farmerExists || !principalExists) continue;
+
+                String groupKey = newGroupPrincipals.contains(principal)
+                        ? newGroupKey(principal)
+                        : Objects.toString(groupByPrincipal.get(principal), null);
+                if (groupKey == null) {
+                    failed++;
+                    continue;
+                }
+
+                groupsWithAreas.add(groupKey);
+                if (!startGroup.containsKey(registration)) {
+                    startGroup.put(registration, Objects.toString(groupByFarmer.get(registration), null));
+                }
+                endGroup.put(registration, groupKey);
+            }
+            return failed;
+        })));
+
+        long moves = endGroup.entrySet().stream()
+                .filter(e -> !Objects.equals(e.getValue(), startGroup.get(e.getKey())))
+                .count();
+
+        preview.farmers(created.size(), 0);
+        preview.groups(newGroupPrincipals.size(), groupsWithAreas.size(), moves);
+        return preview;
+    }
+
+    private static String newGroupKey(String principalRegistration) {
+        return "novo:" + principalRegistration;
+    }
+
+    private int insertFarmers(List<FarmerDataRow> chunk, ReferenceData refs) {
+        Set<String> registrations = new HashSet<>();
+        chunk.forEach(row -> registrations.add(row.registration()));
+
+        Map<String, Long> groupByFarmer = metrics.time(Stage.LOOKUP, () -> importBatchRepository.findFarmerGroups(registrations));
+
+        List<NewFarmer> newFarmers = new ArrayList<>();
+        Set<String> principalsWithoutGroup = new LinkedHashSet<>();
+
+        for (FarmerDataRow row : chunk) {
+            Branch branch = refs.branch(row.branchName());
+            User technician = refs.technician(row.technicianName());
+
+            if (!groupByFarmer.containsKey(row.registration())) {
+                newFarmers.add(new NewFarmer(
+                        row.registration(),
+                        row.name(),
+                        "Normal".equalsIgnoreCase(row.status()) ? StatusEnum.ACTIVE : StatusEnum.DECEASED,
+                        branch != null ? branch.getId() : null,
+                        technician != null ? technician.getId() : null,
+                        row.ownedArea(),
+                        row.leasedArea()
+                ));
+                groupByFarmer.put(row.registration(), null);
+            }
+
+            if (row.isPrincipal() && groupByFarmer.get(row.registration()) == null) {
+                principalsWithoutGroup.add(row.registration());
+            }
+        }
+
+        metrics.time(Stage.FARMER_UPSERT, () -> {
+            importBatchRepository.insertFarmers(newFarmers);
+
+            Map<String, Long> newGroups = importBatchRepository.insertFamilyGroups(principalsWithoutGroup);
+            importBatchRepository.updateFarmerGroups(newGroups);
+            importBatchRepository.recountMembers(newGroups.values());
+        });
+        return 0;
+    }
+
+    private String generateUsername(String name) {
+        return name.toLowerCase(Locale.ROOT).replace(" ", "_");
+    }
+
+    // Soma as áreas de todas as linhas por grupo e guarda o grupo final de cada produtor;
+    // no fim da passada, cada grupo recebe uma única atualização de áreas e de membros.
+    private final class GroupAggregation {
+
+        private final ImportProgress progress;
+        private final Map<Long, double[]> areasByGroup = new LinkedHashMap<>();
+        private final Map<String, Long> moves = new HashMap<>();
+        // grupos de onde saem produtores: a contagem de membros deles também muda
+        private final Set<Long> sourceGroups = new HashSet<>();
+
+        GroupAggregation(ImportProgress progress) {
+            this.progress = progress;
+        }
+
+        int add(List<FarmerDataRow> chunk) {
+            Set<String> principals = new HashSet<>();
+            Set<String> registrations = new HashSet<>();
+            for (FarmerDataRow row : chunk) {
+                principals.add(row.principalRegistration());
+                registrations.add(row.registration());
+            }
+            registrations.addAll(principals);
+
+            Map<String, Long> groupByFarmer = metrics.time(Stage.LOOKUP, () -> importBatchRepository.findFarmerGroups(registrations));
+            Map<String, Long> groupByPrincipal = metrics.time(Stage.LOOKUP, () -> importBatchRepository.findGroupIdsByPrincipals(principals));
+            int failed = 0;
+
+            for (FarmerDataRow row : chunk) {
+                if (!groupByFarmer.containsKey(row.registration()) ||
+                        !groupByFarmer.containsKey(row.principalRegistration())) {
+                    continue;
+                }
+
+                Long groupId = groupByPrincipal.get(row.principalRegistration());
+                if (groupId == null) {
+                    progress.error("group_not_found", row.principalRegistration());
+                    failed++;
+                    continue;
+                }
+
+                double[] areas = areasByGroup.computeIfAbsent(groupId, id -> new double[6]);
+                areas[0] += row.canolaArea();
+                areas[1] += row.wheatArea();
+                areas[2] += row.cornSilageArea();
+                areas[3] += row.grainCornArea();
+                areas[4] += row.beanArea();
+                areas[5] += row.soybeanArea();
+
+                // a última linha do produtor decide o grupo, como se as linhas fossem aplicadas em ordem
+                if (groupId.equals(groupByFarmer.get(row.registration()))) {
+                    moves.remove(row.registration());
+                } else {
+                    moves.put(row.registration(), groupId);
+                    Long previous = groupByFarmer.get(row.registration());
+                    if (previous != null) sourceGroups.add(previous);
+                }
+            }
+            return failed;
+        }
+
+        int write() {
+            List<GroupAreaDelta> deltas = new ArrayList<>(areasByGroup.size());
+            areasByGroup.forEach((groupId, areas) -> deltas.add(
+                    new GroupAreaDelta(groupId, areas[0], areas[1], areas[2], areas[3], areas[4], areas[5])));
+
+            Map<Long, List<String>> membersByGroup = new LinkedHashMap<>();
+            moves.forEach((registration, groupId) ->
+                    membersByGroup.computeIfAbsent(groupId, id -> new ArrayList<>()).add(registration));
+
+            log.info("Atualizando {} grupos familiares e {} associações.", deltas.size(), moves.size());
+            Set<Long> changedGroups = new HashSet<>(sourceGroups);
+            changedGroups.addAll(membersByGroup.keySet());
+
+            metrics.time(Stage.GROUP_ASSOCIATION, () -> {
+                importBatchRepository.addGroupAreas(deltas);
+                importBatchRepository.moveFarmersToGroups(membersByGroup);
+                importBatchRepository.recountMembers(changedGroups);
+            });
+            return 0;
+        }
+    }
+
+    // Acumula as linhas de um bloco e as grava de uma vez no fim dele.
+    private static final class RowBuffer implements ImportChunkRunner.ChunkHandler {
+
+        private final boolean reportInvalid;
+        private final ImportProgress progress;
+        private final ToIntFunction<List<FarmerDataRow>> handler;
+        private final List<FarmerDataRow> rows = new ArrayList<>();
+
+        RowBuffer(boolean reportInvalid, ImportProgress progress, ToIntFunction<List<FarmerDataRow>> handler) {
+            this.reportInvalid = reportInvalid;
+            this.progress = progress;
+            this.handler = handler;
+        }
+
+        @Override
+        public boolean row(CsvRecord record) {
+            if (record.isEmpty(0)) {
+                if (!reportInvalid) return true;
+
+                progress.error("missing_registration", record);
+                return false;
+            }
+
+            rows.add(FarmerDataRow.parse(record));
+            return true;
+        }
+
+        @Override
+        public int endChunk() {
+            if (rows.isEmpty()) return 0;
+
+            int failed = handler.applyAsInt(rows);
+            rows.clear();
+            return failed;
+        }
+    }
+
+    // Carteiras e técnicos são tabelas pequenas: carregadas uma vez e criadas sob demanda.
+    private final class ReferenceData {
+
+        private final Map<String, Branch> branchesByName = new HashMap<>();
+        private final Map<String, User> techniciansByUsername = new HashMap<>();
+
+        ReferenceData() {
+            branchRepository.findAll().forEach(b -> branchesByName.putIfAbsent(b.getName(), b));
+            userRepository.findAll().forEach(u -> techniciansByUsername.put(u.getUsername(), u));
+        }
+
+        Branch branch(String name) {
+            if (name.isEmpty()) return null;
+
+            return branchesByName.computeIfAbsent(name, n -> branchRepository.save(new Branch(n)));
+        }
+
+        User technician(String name) {
+            if (name.isEmpty() || NO_TECHNICIAN.equals(name)) return null;
+
+            return techniciansByUsername.computeIfAbsent(generateUsername(name), username -> {
+                User user = new User();
+                user.setUsername(username);
+                user.setName(name);
+                user.setRoles(Set.of("ROLE_USER", "ROLE_TECHNICIAN"));
+                user.setPassword("!");
+                return userRepository.save(user);
+            });
+        }
+    }
+}
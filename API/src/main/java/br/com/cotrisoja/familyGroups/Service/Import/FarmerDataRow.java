@@ -0,0 +1,44 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+/**
+ * Uma linha do data.csv já separada em colunas.
+ */
+public record FarmerDataRow(
+        String registration,
+        String name,
+        String status,
+        String principalRegistration,
+        String technicianName,
+        double ownedArea,
+        double leasedArea,
+        double canolaArea,
+        double wheatArea,
+        double cornSilageArea,
+        double grainCornArea,
+        double beanArea,
+        double soybeanArea,
+        String branchName
+) {
+    public static FarmerDataRow parse(CsvRecord row) {
+        return new FarmerDataRow(
+                row.get(0),
+                row.get(1),
+                row.get(2),
+                row.get(3),
+                row.get(5),
+                row.getDouble( 6, "ownedArea"),
+                row.getDouble( 7, "leasedArea"),
+                row.getDouble( 8, "canolaArea"),
+                row.getDouble( 9, "wheatArea"),
+                row.getDouble(10, "cornSilageArea"),
+                row.getDouble(11, "grainCornArea"),
+                row.getDouble(12, "beanArea"),
+                row.getDouble(13, "soybeanArea"),
+                row.get(14)
+        );
+    }
+
+    public boolean isPrincipal() {
+        return registration.equals(principalRegistration);
+    }
+}
@@ -0,0 +1,211 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+import br.com.cotrisoja.familyGroups.Repository.Batch.ImportBatchRepository;
+import br.com.cotrisoja.familyGroups.Repository.Batch.ImportBatchRepository.FarmerState;
+import br.com.cotrisoja.familyGroups.Repository.Batch.ImportBatchRepository.FarmerUpdate;
+import br.com.cotrisoja.familyGroups.Repository.TypeRepository;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportMetrics.Stage;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Importação do farmer_update.csv em modo delta: cada linha tem uma impressão digital
+ * (tipo, óbito e bloqueio) comparada com a última aplicada ao produtor. Só as linhas que
+ * mudaram são gravadas, com um UPDATE por combinação distinta de valores.
+ * A impressão é apagada quando o produtor é editado manualmente.
+ */
+@Service
+@RequiredArgsConstructor
+public class FarmerUpdateImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(FarmerUpdateImporter.class);
+
+    private final TypeRepository typeRepository;
+    private final ImportBatchRepository importBatchRepository;
+    private final ImportChunkRunner chunkRunner;
+    private final ImportMetrics metrics;
+
+    // false: reaplica todas as linhas, ignorando as impressões gravadas
+    @Value("${import.farmer-update.delta:true}")
+    private boolean delta;
+
+    public ImportResult importFile(ImportSpool spool, ImportProgress progress) throws IOException {
+        Set<Integer> typeIds = findTypeIds();
+        long[] unchanged = new long[1];
+
+        ImportResult result = chunkRunner.run(spool, 1, 1, progress, new ImportChunkRunner.ChunkHandler() {
+            private final List<FarmerUpdateRow> rows = new ArrayList<>();
+
+            @Override
+            public boolean row(CsvRecord record) {
+                FarmerUpdateRow row = parse(record, progress);
+                if (row == null) return false;
+
+                rows.add(row);
+                return true;
+            }
+
+            @Override
+            public int endChunk() {
+                unchanged[0] += writeChunk(rows, typeIds);
+                rows.clear();
+                return 0;
+            }
+        });
+
+        log.info("Linhas sem alteração desde a última importação: {}", unchanged[0]);
+        return result;
+    }
+
+    // aplica as linhas sobre o estado atual em memória e compara o resultado com o estado original
+    public ImportPreview preview(ImportSpool spool) throws IOException {
+        Set<Integer> typeIds = findTypeIds();
+
+        Map<String, FarmerState> original = new HashMap<>();
+        Map<String, FarmerState> current = new HashMap<>();
+        ImportPreview preview = new ImportPreview();
+
+        preview.rows(chunkRunner.scan(spool, new ImportChunkRunner.ChunkHandler() {
+            private final List<FarmerUpdateRow> rows = new ArrayList<>();
+
+            @Override
+            public boolean row(CsvRecord record) {
+                FarmerUpdateRow row = parse(record, ImportProgress.NONE);
+                if (row == null) return false;
+
+                rows.add(row);
+                return true;
+            }
+
+            @Override
+            public int endChunk() {
+                Set<String> missing = new HashSet<>();
+                rows.forEach(row -> {
+                    if (!original.containsKey(row.registration())) missing.add(row.registration());
+                });
+                Map<String, FarmerState> loaded = importBatchRepository.findFarmerStates(missing);
+                original.putAll(loaded);
+                current.putAll(loaded);
+
+                for (FarmerUpdateRow row : rows) {
+                    FarmerState state = current.get(row.registration());
+                    if (state == null || Objects.equals(state.typeId(), 1)) continue;
+
+                    current.put(row.registration(), new FarmerState(
+                            typeIds.contains(row.typeId()) ? row.typeId() : state.typeId(),
+                            row.deceased() ? StatusEnum.DECEASED : state.status(),
+                            row.blocked() || state.blocked()
+                    ));
+                }
+                rows.clear();
+                return 0;
+            }
+        }));
+
+        long updated = 0, typeChanges = 0, newlyDeceased = 0, newlyBlocked = 0;
+        for (Map.Entry<String, FarmerState> entry : current.entrySet()) {
+            FarmerState before = original.get(entry.getKey());
+            FarmerState after = entry.getValue();
+
+            boolean typeChanged = !Objects.equals(before.typeId(), after.typeId());
+            boolean deceased = before.status() != StatusEnum.DECEASED && after.status() == StatusEnum.DECEASED;
+            boolean blocked = !before.blocked() && after.blocked();
+
+            if (typeChanged) typeChanges++;
+            if (deceased) newlyDeceased++;
+            if (blocked) newlyBlocked++;
+            if (typeChanged || deceased || blocked) updated++;
+        }
+
+        preview.farmers(0, updated);
+        preview.flags(typeChanges, newlyDeceased, newlyBlocked);
+        return preview;
+    }
+
+    // retorna quantas linhas foram puladas por não terem mudado
+    private int writeChunk(List<FarmerUpdateRow> rows, Set<Integer> typeIds) {
+        if (rows.isEmpty()) return 0;
+
+        // linhas repetidas da mesma matrícula são combinadas na ordem do arquivo
+        Map<String, FarmerUpdate> updates = new LinkedHashMap<>();
+        for (FarmerUpdateRow row : rows) {
+            FarmerUpdate update = new FarmerUpdate(
+                    typeIds.contains(row.typeId()) ? row.typeId() : null, row.deceased(), row.blocked());
+            updates.merge(row.registration(), update, FarmerUpdateImporter::combine);
+        }
+
+        Map<String, Long> stored = delta
+                ? metrics.time(Stage.LOOKUP, () -> importBatchRepository.findFingerprints(updates.keySet()))
+                : Map.of();
+
+        Map<String, Long> fingerprints = new HashMap<>();
+        for (Map.Entry<String, FarmerUpdate> entry : updates.entrySet()) {
+            long fingerprint = fingerprint(entry.getValue());
+            if (!Objects.equals(stored.get(entry.getKey()), fingerprint)) {
+                fingerprints.put(entry.getKey(), fingerprint);
+            }
+        }
+
+        int skipped = 0;
+        for (FarmerUpdateRow row : rows) {
+            if (!fingerprints.containsKey(row.registration())) skipped++;
+        }
+        if (fingerprints.isEmpty()) return skipped;
+
+        // impressões só de produtores existentes: um produtor criado depois precisa receber a linha
+        Set<String> existing = metrics.time(Stage.LOOKUP,
+                () -> importBatchRepository.findFarmerGroups(fingerprints.keySet()).keySet());
+        fingerprints.keySet().retainAll(existing);
+
+        Map<FarmerUpdate, List<String>> changed = new HashMap<>();
+        fingerprints.keySet().forEach(registration ->
+                changed.computeIfAbsent(updates.get(registration), u -> new ArrayList<>()).add(registration));
+
+        metrics.time(Stage.TYPE_UPDATE, () -> {
+            importBatchRepository.updateFarmers(changed);
+            importBatchRepository.saveFingerprints(fingerprints);
+        });
+        return skipped;
+    }
+
+    // óbito e bloqueio nunca são desfeitos pelo arquivo; o tipo válido mais recente vence
+    private static FarmerUpdate combine(FarmerUpdate earlier, FarmerUpdate later) {
+        return new FarmerUpdate(
+                later.typeId() != null ? later.typeId() : earlier.typeId(),
+                earlier.deceased() || later.deceased(),
+                earlier.blocked() || later.blocked()
+        );
+    }
+
+    // codificação exata dos valores aplicados; tipo inválido e tipo ausente têm o mesmo efeito
+    private static long fingerprint(FarmerUpdate update) {
+        long type = update.typeId() != null ? update.typeId() : 0;
+        return type << 2 | (update.deceased() ? 2 : 0) | (update.blocked() ? 1 : 0);
+    }
+
+    private Set<Integer> findTypeIds() {
+        Set<Integer> typeIds = new HashSet<>();
+        typeRepository.findAll().forEach(type -> typeIds.add(type.getId()));
+        return typeIds;
+    }
+
+    private FarmerUpdateRow parse(CsvRecord record, ImportProgress progress) {
+        try {
+            FarmerUpdateRow row = FarmerUpdateRow.parse(record);
+            if (row == null) {
+                progress.error("invalid_line", record);
+            }
+            return row;
+        } catch (NumberFormatException e) {
+            progress.error("invalid_type", record);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Uma linha do farmer_update.csv: tipo do produtor, data de óbito e bloqueio.
+ */
+public record FarmerUpdateRow(
+        String registration,
+        int typeId,
+        boolean deceased,
+        boolean blocked
+) {
+    private static final DateTimeFormatter DEATH_DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    // null se a linha tiver menos colunas que o esperado; NumberFormatException se o tipo for inválido
+    public static FarmerUpdateRow parse(CsvRecord row) {
+        if (row.size() < 5) return null;
+
+        return new FarmerUpdateRow(
+                row.get(0),
+                Integer.parseInt(stripGroupPrefix(row.get(2))),
+                parseDeathDate(row, 3) != null,
+                row.equalsIgnoreCase(4, "1")
+        );
+    }
+
+    // data inválida conta como sem óbito e fica marcada na linha
+    private static LocalDate parseDeathDate(CsvRecord row, int index) {
+        String dateStr = row.get(index);
+        if (dateStr == null || dateStr.isBlank() || dateStr.equals("00-00-0000") || dateStr.equals("00.00.0000")) {
+            return null;
+        }
+
+        try {
+            return LocalDate.parse(dateStr, DEATH_DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            row.markInvalid("deathDate");
+            return null;
+        }
+    }
+
+    // "G0002" -> "2"
+    private static String stripGroupPrefix(String raw) {
+        int i = 0;
+        if (i < raw.length() && raw.charAt(i) == 'G') {
+            i++;
+            while (i < raw.length() && raw.charAt(i) == '0') i++;
+        }
+        return raw.substring(i).trim();
+    }
+}
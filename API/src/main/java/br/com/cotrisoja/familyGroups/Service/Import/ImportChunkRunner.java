@@ -0,0 +1,163 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.IntSupplier;
+
+/**
+ * Percorre uma passada do arquivo em blocos de {@code import.chunk-size} linhas.
+ * Cada bloco roda na sua própria transação, que também grava o checkpoint;
+ * ao retomar, as linhas já confirmadas são puladas.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImportChunkRunner {
+
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ImportMetrics metrics;
+
+    @Value("${import.chunk-size:1000}")
+    private int chunkSize;
+
+    public interface ChunkHandler {
+        // retorna false quando a linha falhou
+        boolean row(CsvRecord record);
+
+        // chamado dentro da transação do bloco, antes do commit; é onde o bloco é gravado.
+        // Retorna as linhas que falharam
+        default int endChunk() {
+            return 0;
+        }
+    }
+
+    public ImportResult run(ImportSpool spool,
+                            int pass,
+                            int passes,
+                            ImportProgress progress,
+                            ChunkHandler handler) throws IOException {
+        return run(spool, pass, passes, progress, handler, null);
+    }
+
+    /**
+     * Variante para passadas que só acumulam: os blocos são lidos fora de transação e nada
+     * é gravado até o fim, quando {@code finish} e o checkpoint da passada são confirmados
+     * juntos. Se a passada falhar, ela é refeita por inteiro na retomada.
+     */
+    public ImportResult runAggregated(ImportSpool spool,
+                                      int pass,
+                                      int passes,
+                                      ImportProgress progress,
+                                      ChunkHandler handler,
+                                      IntSupplier finish) throws IOException {
+        return run(spool, pass, passes, progress, handler, finish);
+    }
+
+    private ImportResult run(ImportSpool spool,
+                             int pass,
+                             int passes,
+                             ImportProgress progress,
+                             ChunkHandler handler,
+                             IntSupplier finish) throws IOException {
+        progress.passStarted(pass, passes);
+
+        long resumeFrom = progress.resumeFrom(pass);
+        if (resumeFrom == ImportProgress.PASS_DONE) {
+            return ImportResult.empty();
+        }
+
+        long[] rows = {0};
+        long[] failed = {0};
+
+        try (CsvReader reader = spool.open()) {
+            while (rows[0] < resumeFrom && reader.next()) {
+                rows[0]++;
+            }
+            progress.rowsDone(rows[0], 0);
+
+            boolean more = true;
+            while (more) {
+                long chunkStart = rows[0];
+                long failedBefore = failed[0];
+
+                if (finish != null) {
+                    more = nextChunk(reader, handler, pass == 1 ? progress : ImportProgress.NONE, rows, failed);
+                    failed[0] += handler.endChunk();
+                } else {
+                    more = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                        boolean hasNext = nextChunk(reader, handler, pass == 1 ? progress : ImportProgress.NONE, rows, failed);
+                        failed[0] += handler.endChunk();
+                        commitCheckpoint(progress, pass, rows[0]);
+                        return hasNext;
+                    }));
+                }
+
+                progress.rowsDone(rows[0] - chunkStart, failed[0] - failedBefore);
+            }
+        }
+
+        if (finish != null) {
+            transactionTemplate.executeWithoutResult(status -> {
+                failed[0] += finish.getAsInt();
+                commitCheckpoint(progress, pass, rows[0]);
+            });
+        }
+
+        return new ImportResult(rows[0], failed[0]);
+    }
+
+    // só leitura: percorre o arquivo em blocos, sem transação própria, checkpoint ou progresso
+    public ImportResult scan(ImportSpool spool, ChunkHandler handler) throws IOException {
+        long[] rows = {0};
+        long[] failed = {0};
+
+        try (CsvReader reader = spool.open()) {
+            boolean more = true;
+            while (more) {
+                more = nextChunk(reader, handler, ImportProgress.NONE, rows, failed);
+                failed[0] += handler.endChunk();
+            }
+        }
+        return new ImportResult(rows[0], failed[0]);
+    }
+
+    private void commitCheckpoint(ImportProgress progress, int pass, long row) {
+        progress.checkpoint(pass, row);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // leitura e conversão das linhas; a gravação fica no endChunk de cada handler.
+    // Valores inválidos só são reportados na primeira passada, já que as outras releem as mesmas linhas.
+    private boolean nextChunk(CsvReader reader,
+                              ChunkHandler handler,
+                              ImportProgress progress,
+                              long[] rows,
+                              long[] failed) {
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < chunkSize; i++) {
+                if (!reader.next()) return false;
+
+                rows[0]++;
+                CsvRecord record = reader.record();
+                if (!handler.row(record)) failed[0]++;
+
+                if (record.invalidField() != null) {
+                    progress.error("invalid_value:" + record.invalidField(), record);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            metrics.record(ImportMetrics.Stage.PARSE, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Erros de uma importação agrupados por motivo, com algumas linhas de exemplo,
+ * para serem registrados num resumo ao fim em vez de uma mensagem por linha.
+ */
+public class ImportErrors {
+
+    private static final int SAMPLES_PER_REASON = 3;
+
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final Map<String, List<String>> samples = new LinkedHashMap<>();
+
+    public synchronized void add(String reason, Object sample) {
+        counts.merge(reason, 1L, Long::sum);
+
+        List<String> reasonSamples = samples.computeIfAbsent(reason, r -> new ArrayList<>(SAMPLES_PER_REASON));
+        if (reasonSamples.size() < SAMPLES_PER_REASON) {
+            reasonSamples.add(String.valueOf(sample));
+        }
+    }
+
+    public synchronized Map<String, Long> counts() {
+        return new LinkedHashMap<>(counts);
+    }
+
+    public synchronized void log(Logger log, String filename) {
+        counts.forEach((reason, count) ->
+                log.warn("{}: {} ocorrência(s) de '{}'. Exemplos: {}", filename, count, reason, samples.get(reason)));
+    }
+}
@@ -0,0 +1,123 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas das importações, expostas em /actuator/metrics:
+ * <ul>
+ *     <li>{@code import.stage} — tempo por etapa (tag {@code stage});</li>
+ *     <li>{@code import.time} — tempo de banco ({@code kind=db}, soma das etapas de banco)
+ *     e de CPU da thread da importação ({@code kind=cpu});</li>
+ *     <li>{@code import.rows}, {@code import.throughput} e {@code import.errors}, por arquivo.</li>
+ * </ul>
+ */
+@Component
+public class ImportMetrics {
+
+    public enum Stage {
+        PARSE("parse", false),
+        LOOKUP("lookup", true),
+        FARMER_UPSERT("farmer_upsert", true),
+        GROUP_ASSOCIATION("group_association", true),
+        TYPE_UPDATE("type_update", true),
+        ASSET_UPSERT("asset_upsert", true);
+
+        private final String tag;
+        private final boolean database;
+
+        Stage(String tag, boolean database) {
+            this.tag = tag;
+            this.database = database;
+        }
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final MeterRegistry registry;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Timer databaseTime;
+    private final Timer cpuTime;
+
+    public ImportMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("import.stage")
+                    .description("Tempo gasto em cada etapa da importação")
+                    .tag("stage", stage.tag)
+                    .register(registry));
+        }
+
+        this.databaseTime = Timer.builder("import.time").tag("kind", "db").register(registry);
+        this.cpuTime = Timer.builder("import.time").tag("kind", "cpu").register(registry);
+    }
+
+    public <T> T time(Stage stage, Supplier<T> body) {
+        long start = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public void time(Stage stage, Runnable body) {
+        long start = System.nanoTime();
+        try {
+            body.run();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+        if (stage.database) {
+            databaseTime.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // tempo de CPU da thread atual, ou -1 se a JVM não oferecer a medida
+    public long threadCpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    public void recordCpu(long nanos) {
+        if (nanos > 0) cpuTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordJob(String filename, long rowsProcessed, long rowsFailed, Duration elapsed) {
+        String file = filename.toLowerCase(Locale.ROOT);
+        Counter.builder("import.rows").tag("file", file).tag("outcome", "processed").register(registry).increment(rowsProcessed);
+        Counter.builder("import.rows").tag("file", file).tag("outcome", "failed").register(registry).increment(rowsFailed);
+
+        double seconds = elapsed.toNanos() / 1e9;
+        if (seconds > 0) {
+            DistributionSummary.builder("import.throughput")
+                    .description("Linhas por segundo de cada importação")
+                    .baseUnit("rows/s")
+                    .tag("file", file)
+                    .register(registry)
+                    .record(rowsProcessed / seconds);
+        }
+    }
+
+    public void recordErrors(String filename, ImportErrors errors) {
+        String file = filename.toLowerCase(Locale.ROOT);
+        errors.counts().forEach((reason, count) ->
+                Counter.builder("import.errors").tag("file", file).tag("reason", reason).register(registry).increment(count));
+    }
+}
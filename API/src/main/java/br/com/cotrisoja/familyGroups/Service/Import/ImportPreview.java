@@ -0,0 +1,53 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+import lombok.Getter;
+
+/**
+ * Contadores do que uma importação mudaria, preenchidos pelo modo de simulação.
+ */
+@Getter
+public class ImportPreview {
+
+    private long rowsProcessed;
+    private long rowsFailed;
+
+    private long farmersCreated;
+    private long farmersUpdated;
+    private long typeChanges;
+    private long newlyDeceased;
+    private long newlyBlocked;
+
+    private long groupsCreated;
+    private long groupsUpdated;
+    private long membershipMoves;
+
+    private long assetsInserted;
+    private long assetsUpdated;
+
+    public void rows(ImportResult result) {
+        rowsProcessed = Math.max(rowsProcessed, result.rowsProcessed());
+        rowsFailed += result.rowsFailed();
+    }
+
+    public void farmers(long created, long updated) {
+        farmersCreated += created;
+        farmersUpdated += updated;
+    }
+
+    public void flags(long typeChanges, long newlyDeceased, long newlyBlocked) {
+        this.typeChanges += typeChanges;
+        this.newlyDeceased += newlyDeceased;
+        this.newlyBlocked += newlyBlocked;
+    }
+
+    public void groups(long created, long updated, long membershipMoves) {
+        groupsCreated += created;
+        groupsUpdated += updated;
+        this.membershipMoves += membershipMoves;
+    }
+
+    public void assets(long inserted, long updated) {
+        assetsInserted += inserted;
+        assetsUpdated += updated;
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+public interface ImportProgress {
+
+    long PASS_DONE = Long.MAX_VALUE;
+
+    ImportProgress NONE = new ImportProgress() {
+        @Override
+        public void passStarted(int pass, int passes) {}
+
+        @Override
+        public void rowsDone(long rows, long failed) {}
+
+        @Override
+        public long resumeFrom(int pass) {
+            return 0;
+        }
+
+        @Override
+        public void checkpoint(int pass, long row) {}
+
+        @Override
+        public void error(String reason, Object sample) {}
+    };
+
+    // passadas numeradas a partir de 1; o contador de linhas recomeça a cada passada
+    void passStarted(int pass, int passes);
+
+    void rowsDone(long rows, long failed);
+
+    // linhas da passada já confirmadas numa execução anterior, ou PASS_DONE se ela terminou
+    long resumeFrom(int pass);
+
+    // chamado dentro da transação do bloco, para o checkpoint ser gravado junto com os dados
+    void checkpoint(int pass, long row);
+
+    // erro de uma linha, agregado por motivo em vez de registrado individualmente no log
+    void error(String reason, Object sample);
+}
@@ -0,0 +1,14 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+public record ImportResult(
+        long rowsProcessed,
+        long rowsFailed
+) {
+    public static ImportResult empty() {
+        return new ImportResult(0, 0);
+    }
+
+    public ImportResult plus(ImportResult other) {
+        return new ImportResult(rowsProcessed + other.rowsProcessed, rowsFailed + other.rowsFailed);
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.cotrisoja.familyGroups.Service.Import;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Cópia em disco de um arquivo enviado. Permite percorrer o CSV mais de uma vez
+ * sem mantê-lo em memória; o arquivo temporário é apagado no {@link #close()}.
+ */
+public final class ImportSpool implements Closeable {
+
+    private final Path file;
+    private final long rowCount;
+    private final String hash;
+
+    private ImportSpool(Path file, long rowCount, String hash) {
+        this.file = file;
+        this.rowCount = rowCount;
+        this.hash = hash;
+    }
+
+    public static ImportSpool copyOf(InputStream in) throws IOException {
+        Path file = Files.createTempFile("import-", ".csv");
+        MessageDigest digest = sha256();
+        long lines = 0;
+        try (in; OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            byte last = '\n';
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') lines++;
+                }
+                last = buffer[read - 1];
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+            if (last != '\n') lines++;
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new ImportSpool(file, Math.max(lines - 1, 0), HexFormat.of().formatHex(digest.digest()));
+    }
+
+    // linhas de dados (sem o cabeçalho), contadas durante a cópia
+    public long rowCount() {
+        return rowCount;
+    }
+
+    // SHA-256 do conteúdo, usado para reconhecer o reenvio do mesmo arquivo
+    public String hash() {
+        return hash;
+    }
+
+    // abre um leitor já posicionado após o cabeçalho
+    public CsvReader open() throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8));
+        reader.next();
+        return reader;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,235 @@
+package br.com.cotrisoja.familyGroups.Service;
+
+import br.com.cotrisoja.familyGroups.Entity.ImportJob;
+import br.com.cotrisoja.familyGroups.Enum.ImportJobStatusEnum;
+import br.com.cotrisoja.familyGroups.Exception.BadRequestException;
+import br.com.cotrisoja.familyGroups.Repository.ImportJobRepository;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportErrors;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportMetrics;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportProgress;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportResult;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportSpool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+@Service
+public class ImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+
+    private final ImportJobRepository importJobRepository;
+    private final FileService fileService;
+    private final Executor fileUploadExecutor;
+    private final ImportMetrics importMetrics;
+
+    public ImportJobService(ImportJobRepository importJobRepository,
+                            FileService fileService,
+                            @Qualifier("fileUploadExecutor") Executor fileUploadExecutor,
+                            ImportMetrics importMetrics) {
+        this.importJobRepository = importJobRepository;
+        this.fileService = fileService;
+        this.fileUploadExecutor = fileUploadExecutor;
+        this.importMetrics = importMetrics;
+    }
+
+    // o arquivo temporário do multipart some ao fim da requisição, então o upload é copiado antes de enfileirar
+    public ImportJob submit(MultipartFile file) throws IOException {
+        ImportSpool spool = ImportSpool.copyOf(file.getInputStream());
+
+        Optional<ImportJob> previous = importJobRepository.findFirstByFileHashOrderByIdDesc(spool.hash())
+                .filter(job -> job.getStatus() != ImportJobStatusEnum.COMPLETED)
+                .filter(job -> job.getFilename().equalsIgnoreCase(file.getOriginalFilename()));
+
+        if (previous.isPresent() && previous.get().getStatus() != ImportJobStatusEnum.FAILED) {
+            spool.close();
+            throw alreadyImporting(previous.get().getId());
+        }
+
+        ImportJob job;
+        if (previous.isPresent()) {
+            // mesmo arquivo de uma importação que falhou: retoma a partir do último checkpoint
+            job = requeue(previous.get().getId(), spool);
+            log.info("Retomando importação {} a partir da linha {} da passada {}.",
+                    job.getId(), job.getCheckpointRow(), job.getCheckpointPass());
+        } else {
+            job = new ImportJob();
+            job.setFilename(file.getOriginalFilename());
+            job.setFileHash(spool.hash());
+            job.setActiveHash(spool.hash());
+            job.setRowsTotal(spool.rowCount());
+            job.setCreatedAt(LocalDateTime.now());
+            job.setStatus(ImportJobStatusEnum.QUEUED);
+            try {
+                job = importJobRepository.saveAndFlush(job);
+            } catch (DataIntegrityViolationException e) {
+                spool.close();
+                throw alreadyImporting(importJobRepository.findFirstByFileHashOrderByIdDesc(spool.hash())
+                        .map(ImportJob::getId).orElse(null));
+            }
+        }
+
+        Long jobId = job.getId();
+        try {
+            fileUploadExecutor.execute(() -> run(jobId, spool));
+        } catch (TaskRejectedException e) {
+            spool.close();
+            finish(jobId, ImportJobStatusEnum.FAILED, "Fila de importação cheia.");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Fila de importação cheia. Tente novamente mais tarde.");
+        }
+
+        return job;
+    }
+
+    // outro envio do mesmo arquivo pode ter retomado o job (nenhuma linha atualizada) ou criado um
+    // job novo para o mesmo hash (violação da restrição única de activeHash)
+    private ImportJob requeue(Long jobId, ImportSpool spool) throws IOException {
+        int requeued;
+        try {
+            requeued = importJobRepository.requeueFailed(jobId);
+        } catch (DataIntegrityViolationException e) {
+            requeued = 0;
+        }
+
+        if (requeued == 0) {
+            spool.close();
+            throw alreadyImporting(jobId);
+        }
+        return importJobRepository.findById(jobId).orElseThrow();
+    }
+
+    private static BadRequestException alreadyImporting(Long jobId) {
+        return new BadRequestException("Este arquivo já está sendo importado (job " + jobId + ").");
+    }
+
+    public Optional<ImportJob> findById(Long id) {
+        return importJobRepository.findById(id);
+    }
+
+    // o arquivo de um job interrompido não sobrevive ao reinício; ele precisa ser reenviado
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        int count = importJobRepository.failAll(
+                List.of(ImportJobStatusEnum.QUEUED, ImportJobStatusEnum.RUNNING),
+                "Importação interrompida pela reinicialização do servidor.",
+                LocalDateTime.now()
+        );
+
+        if (count > 0) {
+            log.warn("{} importação(ões) interrompida(s) marcada(s) como falha.", count);
+        }
+    }
+
+    private void run(Long jobId, ImportSpool spool) {
+        JobProgress progress = null;
+        long started = System.nanoTime();
+        long cpuStarted = importMetrics.threadCpuNanos();
+
+        try (spool) {
+            ImportJob job = importJobRepository.findById(jobId).orElseThrow();
+            job.setStatus(ImportJobStatusEnum.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            importJobRepository.save(job);
+
+            progress = new JobProgress(job);
+            ImportResult result = fileService.importFile(job.getFilename(), spool, progress);
+            log.info("Importação {} concluída: {} linhas, {} com erro.", jobId, result.rowsProcessed(), result.rowsFailed());
+
+            importMetrics.recordJob(job.getFilename(), result.rowsProcessed(), result.rowsFailed(),
+                    Duration.ofNanos(System.nanoTime() - started));
+            finish(jobId, ImportJobStatusEnum.COMPLETED, null);
+        } catch (Exception e) {
+            log.error("Erro na importação {}: {}", jobId, e.getMessage(), e);
+            finish(jobId, ImportJobStatusEnum.FAILED, e.getMessage());
+        } finally {
+            if (cpuStarted >= 0) {
+                importMetrics.recordCpu(importMetrics.threadCpuNanos() - cpuStarted);
+            }
+            if (progress != null) {
+                progress.errors.log(log, progress.filename);
+                importMetrics.recordErrors(progress.filename, progress.errors);
+            }
+        }
+    }
+
+    private void finish(Long jobId, ImportJobStatusEnum status, String error) {
+        importJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setActiveHash(null);
+            job.setError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            job.setFinishedAt(LocalDateTime.now());
+            importJobRepository.save(job);
+        });
+    }
+
+    private final class JobProgress implements ImportProgress {
+
+        private final Long jobId;
+        private final String filename;
+        private final ImportErrors errors = new ImportErrors();
+        private final int checkpointPass;
+        private final long checkpointRow;
+        private int pass;
+        private int passes;
+        private long rowsProcessed;
+        private long rowsFailed;
+
+        JobProgress(ImportJob job) {
+            this.jobId = job.getId();
+            this.filename = job.getFilename();
+            this.checkpointPass = job.getCheckpointPass() != null ? job.getCheckpointPass() : 0;
+            this.checkpointRow = job.getCheckpointRow() != null ? job.getCheckpointRow() : 0;
+            this.rowsFailed = job.getRowsFailed();
+        }
+
+        @Override
+        public void passStarted(int pass, int passes) {
+            this.pass = pass;
+            this.passes = passes;
+            this.rowsProcessed = 0;
+            save();
+        }
+
+        @Override
+        public void rowsDone(long rows, long failed) {
+            rowsProcessed += rows;
+            rowsFailed += failed;
+            save();
+        }
+
+        @Override
+        public long resumeFrom(int pass) {
+            if (pass < checkpointPass) return PASS_DONE;
+            return pass == checkpointPass ? checkpointRow : 0;
+        }
+
+        @Override
+        public void checkpoint(int pass, long row) {
+            importJobRepository.updateCheckpoint(jobId, pass, row);
+        }
+
+        @Override
+        public void error(String reason, Object sample) {
+            errors.add(reason, sample);
+        }
+
+        private void save() {
+            importJobRepository.updateProgress(jobId, pass, passes, rowsProcessed, rowsFailed);
+        }
+    }
+}
@@ -1,25 +1,32 @@
 package br.com.cotrisoja.familyGroups.Service;
 
+import br.com.cotrisoja.familyGroups.Entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.security.Key;
-import java.security.SignatureException;
+import java.time.Instant;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.List;
 
 @Service
 public class JwtService {
 
     private static final String SECRET_KEY = "your-256-bit-secret-your-256-bit-secret";
 
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String ROLE_PREFIX = "ROLE_";
+
     private Key signingKey;
     private JwtParser jwtParser;
 
+    // conteúdo de um token já verificado: assinatura, validade e claims obrigatórias
+    public record TokenUser(Long userId, String username, List<String> roles, Instant issuedAt) {}
+
     @PostConstruct
     public void init() {
         this.signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
@@ -28,38 +35,47 @@ public class JwtService {
                 .build();
     }
 
-    public String generateToken(String username) {
+    // os papéis vão no token: quem o apresenta é autenticado sem consultar o banco
+    public String generateToken(User user) {
         return Jwts.builder()
-                .subject(username)
+                .subject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLES_CLAIM, user.getRoles().stream().map(JwtService::authority).toList())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))
                 .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    public Claims extractAllClaims(String token) {
+    // uma única leitura do token; tokens sem id ou papéis (emitidos antes deles) são recusados
+    public TokenUser verify(String token) {
+        Claims claims;
         try {
-            return jwtParser.parseSignedClaims(token).getPayload();
-        } catch (JwtException e) {
+            claims = jwtParser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new RuntimeException("Token inválido ou corrompido");
+        }
+
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        if (userId == null || roles == null || claims.getSubject() == null || claims.getIssuedAt() == null) {
             throw new RuntimeException("Token inválido ou corrompido");
         }
-    }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return new TokenUser(
+                userId.longValue(),
+                claims.getSubject(),
+                roles.stream().map(String::valueOf).map(JwtService::authority).toList(),
+                claims.getIssuedAt().toInstant()
+        );
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractClaim(token, Claims::getExpiration).before(new Date());
+    /*
+     * Papéis são gravados com ou sem o prefixo ("ADMIN" ou "ROLE_ADMIN"); como o antigo
+     * UserDetailsServiceCustom, os dois viram "ROLE_ADMIN" para os hasRole do SecurityConfig.
+     * Também aplicado na leitura, para tokens emitidos antes da normalização
+     */
+    private static String authority(String role) {
+        return role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role;
     }
 }
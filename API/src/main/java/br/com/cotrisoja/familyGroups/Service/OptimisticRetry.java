@@ -0,0 +1,75 @@
+package br.com.cotrisoja.familyGroups.Service;
+
+import br.com.cotrisoja.familyGroups.Exception.ConflictException;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Executa uma alteração na sua própria transação e, se outra transação gravou as mesmas linhas
+ * no meio do caminho (versão diferente da lida), repete a alteração desde a leitura. Esgotadas as
+ * tentativas, o conflito chega ao cliente como {@link ConflictException}.
+ * <p>
+ * A operação precisa reler o que altera a cada tentativa e revalidar as regras, já que o estado
+ * pode ter mudado. Chamada de dentro de uma transação já aberta, roda uma única vez: quem abriu
+ * a transação é quem pode repeti-la.
+ */
+@Component
+@RequiredArgsConstructor
+public class OptimisticRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    @Value("${api.optimistic-retry.attempts:3}")
+    private int attempts;
+
+    public <T> T run(Supplier<T> operation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return operation.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> operation.get());
+            } catch (OptimisticLockingFailureException e) {
+                // com o open-in-view o contexto de persistência sobrevive à transação: sem limpar,
+                // a próxima tentativa releria as mesmas entidades desatualizadas
+                entityManager.clear();
+
+                if (attempt >= attempts) {
+                    throw ConflictException.of(e);
+                }
+                log.debug("Conflito de versão (tentativa {} de {}): {}", attempt, attempts, e.getMessage());
+                pause(attempt);
+            }
+        }
+    }
+
+    public void run(Runnable operation) {
+        run(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    // espera curta e aleatória, para as transações concorrentes não colidirem de novo em sequência
+    private static void pause(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50) * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
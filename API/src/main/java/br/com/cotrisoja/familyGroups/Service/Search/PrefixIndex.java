@@ -0,0 +1,100 @@
+package br.com.cotrisoja.familyGroups.Service.Search;
+
+import java.util.*;
+
+/**
+ * Índice de prefixos imutável sobre entradas numeradas de 0 a {@code size - 1}. Os termos ficam
+ * num vetor ordenado e as entradas de cada termo num único vetor de inteiros, fatiado por
+ * {@code offsets}; um prefixo corresponde a uma faixa contígua de termos.
+ */
+final class PrefixIndex {
+
+    private final String[] terms;
+    private final int[] offsets;
+    private final int[] postings;
+    private final int size;
+
+    private PrefixIndex(String[] terms, int[] offsets, int[] postings, int size) {
+        this.terms = terms;
+        this.offsets = offsets;
+        this.postings = postings;
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // entradas em que cada prefixo inicia algum termo
+    BitSet matchAll(String[] prefixes) {
+        BitSet result = null;
+        for (String prefix : prefixes) {
+            BitSet hits = new BitSet(size);
+            for (int t = lowerBound(prefix); t < terms.length && terms[t].startsWith(prefix); t++) {
+                for (int p = offsets[t]; p < offsets[t + 1]; p++) {
+                    hits.set(postings[p]);
+                }
+            }
+
+            if (result == null) {
+                result = hits;
+            } else {
+                result.and(hits);
+            }
+            if (result.isEmpty()) break;
+        }
+        return result != null ? result : new BitSet();
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0, high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(prefix) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    static final class Builder {
+
+        private final Map<String, int[]> entriesByTerm = new HashMap<>();
+        private final Map<String, Integer> counts = new HashMap<>();
+        private int size;
+
+        // as entradas precisam ser adicionadas em ordem crescente
+        void add(int entry, String term) {
+            if (term == null || term.isEmpty()) return;
+
+            int count = counts.getOrDefault(term, 0);
+            int[] entries = entriesByTerm.get(term);
+            if (count > 0 && entries[count - 1] == entry) return;
+
+            if (entries == null) {
+                entries = new int[2];
+            } else if (count == entries.length) {
+                entries = Arrays.copyOf(entries, count * 2);
+            }
+            entries[count] = entry;
+            entriesByTerm.put(term, entries);
+            counts.put(term, count + 1);
+            size = Math.max(size, entry + 1);
+        }
+
+        PrefixIndex build(int size) {
+            String[] terms = entriesByTerm.keySet().toArray(String[]::new);
+            Arrays.sort(terms);
+
+            int[] offsets = new int[terms.length + 1];
+            for (int t = 0; t < terms.length; t++) {
+                offsets[t + 1] = offsets[t] + counts.get(terms[t]);
+            }
+
+            int[] postings = new int[offsets[terms.length]];
+            for (int t = 0; t < terms.length; t++) {
+                System.arraycopy(entriesByTerm.get(terms[t]), 0, postings, offsets[t], counts.get(terms[t]));
+            }
+            return new PrefixIndex(terms, offsets, postings, Math.max(size, this.size));
+        }
+    }
+}
@@ -0,0 +1,511 @@
+package br.com.cotrisoja.familyGroups.Service.Search;
+
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupSuggestionDTO;
+import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerSuggestionDTO;
+import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+import br.com.cotrisoja.familyGroups.Repository.Batch.FarmerSearchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Busca instantânea (type-ahead) de produtores e grupos familiares, respondida da memória.
+ * O índice completo é montado na inicialização e ao fim das importações. Entre uma montagem e
+ * outra, os produtores e grupos alterados são relidos do banco depois do commit e ficam numa
+ * sobreposição pequena, que esconde as entradas antigas e é mesclada em cada consulta.
+ * <p>
+ * Cada termo da consulta precisa iniciar alguma palavra do nome, a matrícula ou o id do grupo.
+ */
+@Service
+public class TypeAheadIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TypeAheadIndex.class);
+
+    // acima disso a sobreposição custa mais por consulta do que vale, e o índice é remontado
+    private static final int MAX_CHANGES = 1000;
+
+    private final FarmerSearchRepository farmerSearchRepository;
+    private final Executor searchIndexExecutor;
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final AtomicBoolean changesQueued = new AtomicBoolean();
+    private final Set<String> pendingFarmers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingGroups = ConcurrentHashMap.newKeySet();
+
+    private volatile FarmerEntries farmers = FarmerEntries.EMPTY;
+    private volatile GroupEntries groups = GroupEntries.EMPTY;
+
+    public TypeAheadIndex(FarmerSearchRepository farmerSearchRepository,
+                          @Qualifier("searchIndexExecutor") Executor searchIndexExecutor) {
+        this.farmerSearchRepository = farmerSearchRepository;
+        this.searchIndexExecutor = searchIndexExecutor;
+    }
+
+    public List<FarmerSuggestionDTO> suggestFarmers(String query, boolean onlyAvailable, int limit) {
+        String[] prefixes = prefixes(query);
+        if (prefixes.length == 0) return List.of();
+
+        FarmerEntries entries = farmers;
+        BitSet hits = entries.index.matchAll(prefixes);
+        hits.andNot(entries.hidden);
+        if (onlyAvailable) hits.and(entries.available);
+        List<Change<FarmerSuggestionDTO>> changes =
+                matching(entries.changes, prefixes, s -> !onlyAvailable || s.available());
+
+        List<FarmerSuggestionDTO> result = new ArrayList<>();
+
+        // matrícula exata primeiro; o restante segue a ordem do índice, alfabética
+        String registration = query.trim();
+        int exact = entries.entryOf(registration);
+        if (exact >= 0 && hits.get(exact)) {
+            result.add(entries.suggestion(exact));
+            hits.clear(exact);
+        } else {
+            changes.stream().filter(c -> c.key().equals(registration)).findFirst().ifPresent(c -> {
+                result.add(c.suggestion());
+                changes.remove(c);
+            });
+        }
+        merge(hits, entries::sortKey, entries::suggestion, changes, limit, result);
+        return result;
+    }
+
+    public List<FamilyGroupSuggestionDTO> suggestFamilyGroups(String query, int limit) {
+        String[] prefixes = prefixes(query);
+        if (prefixes.length == 0) return List.of();
+
+        GroupEntries entries = groups;
+        BitSet hits = entries.index.matchAll(prefixes);
+        hits.andNot(entries.hidden);
+
+        List<FamilyGroupSuggestionDTO> result = new ArrayList<>();
+        merge(hits, entries::sortKey, entries::suggestion, matching(entries.changes, prefixes, s -> true), limit, result);
+        return result;
+    }
+
+    // as entradas alteradas são relidas depois do commit, uma vez por transação
+    public void changedAfterCommit(Collection<String> farmerIds, Collection<Long> familyGroupIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingFarmers.addAll(farmerIds);
+            pendingGroups.addAll(familyGroupIds);
+            requestChanges();
+            return;
+        }
+
+        PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            PendingChanges created = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendingFarmers.addAll(created.farmers);
+                    pendingGroups.addAll(created.groups);
+                    requestChanges();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TypeAheadIndex.this);
+                }
+            });
+            changes = created;
+        }
+        changes.farmers.addAll(farmerIds);
+        changes.groups.addAll(familyGroupIds);
+    }
+
+    // pedidos feitos enquanto uma reconstrução espera na fila são atendidos por ela
+    public void requestRebuild() {
+        if (!rebuildQueued.compareAndSet(false, true)) return;
+
+        try {
+            searchIndexExecutor.execute(() -> {
+                rebuildQueued.set(false);
+                rebuild();
+            });
+        } catch (TaskRejectedException e) {
+            rebuildQueued.set(false);
+            log.warn("Reconstrução do índice de busca recusada: {}", e.getMessage());
+        }
+    }
+
+    // synchronized com applyChanges: a reconstrução da inicialização roda fora do executor
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        try {
+            FarmerEntries newFarmers = loadFarmers();
+            GroupEntries newGroups = loadGroups();
+            farmers = newFarmers;
+            groups = newGroups;
+
+            log.debug("Índice de busca reconstruído: {} produtor(es), {} grupo(s) em {} ms.",
+                    newFarmers.index.size(), newGroups.index.size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Erro ao reconstruir o índice de busca: {}", e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Roda no mesmo executor de uma thread da reconstrução, então as duas nunca se cruzam; as
+     * alterações que chegam enquanto esta espera na fila são atendidas por ela
+     */
+    private void requestChanges() {
+        if (!changesQueued.compareAndSet(false, true)) return;
+
+        try {
+            searchIndexExecutor.execute(() -> {
+                changesQueued.set(false);
+                applyChanges();
+            });
+        } catch (TaskRejectedException e) {
+            // as alterações continuam pendentes e entram na próxima atualização
+            changesQueued.set(false);
+            log.warn("Atualização do índice de busca recusada: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void applyChanges() {
+        Set<String> farmerIds = drain(pendingFarmers);
+        Set<Long> familyGroupIds = drain(pendingGroups);
+        // uma reconstrução ainda na fila lê o banco depois deste ponto
+        if ((farmerIds.isEmpty() && familyGroupIds.isEmpty()) || rebuildQueued.get()) return;
+
+        try {
+            FarmerEntries currentFarmers = farmers;
+
+            // os grupos de onde os produtores saíram também mudam de tamanho
+            Set<Long> resized = new HashSet<>(familyGroupIds);
+            for (String farmerId : farmerIds) {
+                long groupId = currentFarmers.groupOf(farmerId);
+                if (groupId != 0) resized.add(groupId);
+            }
+
+            List<Change<FarmerSuggestionDTO>> farmerChanges = new ArrayList<>();
+            farmerSearchRepository.forEachFarmer(farmerIds, resized, rs -> {
+                long groupId = rs.getLong("family_group_id");
+                boolean hasGroup = !rs.wasNull();
+                boolean available = StatusEnum.ACTIVE.name().equals(rs.getString("status"))
+                        && !rs.getBoolean("blocked")
+                        && (!hasGroup || rs.getInt("group_size") <= 1);
+
+                farmerChanges.add(farmerChange(rs.getString("registration_number"), rs.getString("name"),
+                        hasGroup ? groupId : 0, available));
+            });
+
+            List<Change<FamilyGroupSuggestionDTO>> groupChanges = new ArrayList<>();
+            farmerSearchRepository.forEachFamilyGroup(familyGroupIds, farmerIds, rs -> groupChanges.add(
+                    groupChange(rs.getLong("id"), rs.getString("principal_registration"), rs.getString("principal_name"))));
+
+            // chaves sem linha no banco foram apagadas
+            Set<String> farmerKeys = new HashSet<>(farmerIds);
+            farmerChanges.forEach(c -> farmerKeys.add(c.key()));
+            Set<String> groupKeys = new HashSet<>();
+            familyGroupIds.forEach(id -> groupKeys.add(Long.toString(id)));
+            groupChanges.forEach(c -> groupKeys.add(c.key()));
+
+            FarmerEntries newFarmers = currentFarmers.with(farmerKeys, farmerChanges);
+            GroupEntries newGroups = groups.with(groupKeys, groupChanges);
+            farmers = newFarmers;
+            groups = newGroups;
+
+            if (newFarmers.changes.size() > MAX_CHANGES || newGroups.changes.size() > MAX_CHANGES) {
+                requestRebuild();
+            }
+        } catch (RuntimeException e) {
+            log.error("Erro ao atualizar o índice de busca: {}", e.getMessage(), e);
+            requestRebuild();
+        }
+    }
+
+    private FarmerEntries loadFarmers() {
+        List<FarmerRow> rows = new ArrayList<>();
+        Map<Long, Integer> groupSizes = new HashMap<>();
+
+        farmerSearchRepository.forEachFarmer(rs -> {
+            long groupId = rs.getLong("family_group_id");
+            boolean hasGroup = !rs.wasNull();
+            if (hasGroup) groupSizes.merge(groupId, 1, Integer::sum);
+
+            rows.add(new FarmerRow(
+                    rs.getString("registration_number"),
+                    rs.getString("name"),
+                    Farmer.normalizeSearch(rs.getString("name")),
+                    hasGroup ? groupId : 0,
+                    StatusEnum.ACTIVE.name().equals(rs.getString("status")) && !rs.getBoolean("blocked")
+            ));
+        });
+        rows.sort(Comparator.comparing(FarmerRow::searchName).thenComparing(FarmerRow::registrationNumber));
+
+        int size = rows.size();
+        String[] registrations = new String[size];
+        String[] names = new String[size];
+        long[] groupIds = new long[size];
+        BitSet available = new BitSet(size);
+        PrefixIndex.Builder builder = new PrefixIndex.Builder();
+
+        for (int e = 0; e < size; e++) {
+            FarmerRow row = rows.get(e);
+            registrations[e] = row.registrationNumber();
+            names[e] = row.name();
+            groupIds[e] = row.groupId();
+            if (row.active() && (row.groupId() == 0 || groupSizes.get(row.groupId()) <= 1)) {
+                available.set(e);
+            }
+
+            for (String word : row.searchName().split(" ")) builder.add(e, word);
+            builder.add(e, Farmer.normalizeSearch(row.registrationNumber()));
+        }
+
+        // matrícula -> entrada, por busca binária
+        Integer[] order = new Integer[size];
+        for (int e = 0; e < size; e++) order[e] = e;
+        Arrays.sort(order, Comparator.comparing(e -> registrations[e]));
+
+        String[] sortedRegistrations = new String[size];
+        int[] registrationEntries = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedRegistrations[i] = registrations[order[i]];
+            registrationEntries[i] = order[i];
+        }
+
+        return new FarmerEntries(builder.build(size), registrations, names, groupIds, available,
+                sortedRegistrations, registrationEntries, new BitSet(), List.of());
+    }
+
+    private GroupEntries loadGroups() {
+        List<GroupRow> rows = new ArrayList<>();
+        farmerSearchRepository.forEachFamilyGroup(rs -> {
+            String name = rs.getString("principal_name");
+            rows.add(new GroupRow(
+                    rs.getLong("id"),
+                    rs.getString("principal_registration"),
+                    name,
+                    name != null ? Farmer.normalizeSearch(name) : ""
+            ));
+        });
+        rows.sort(Comparator.comparing(GroupRow::searchName).thenComparingLong(GroupRow::id));
+
+        int size = rows.size();
+        long[] ids = new long[size];
+        String[] registrations = new String[size];
+        String[] names = new String[size];
+        PrefixIndex.Builder builder = new PrefixIndex.Builder();
+
+        for (int e = 0; e < size; e++) {
+            GroupRow row = rows.get(e);
+            ids[e] = row.id();
+            registrations[e] = row.principalRegistration();
+            names[e] = row.principalName();
+
+            for (String word : row.searchName().split(" ")) builder.add(e, word);
+            builder.add(e, Farmer.normalizeSearch(row.principalRegistration()));
+            builder.add(e, Long.toString(row.id()));
+        }
+
+        // id -> entrada, por busca binária
+        Integer[] order = new Integer[size];
+        for (int e = 0; e < size; e++) order[e] = e;
+        Arrays.sort(order, Comparator.comparingLong(e -> ids[e]));
+
+        long[] sortedIds = new long[size];
+        int[] idEntries = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedIds[i] = ids[order[i]];
+            idEntries[i] = order[i];
+        }
+
+        return new GroupEntries(builder.build(size), ids, registrations, names, sortedIds, idEntries,
+                new BitSet(), List.of());
+    }
+
+    private static Change<FarmerSuggestionDTO> farmerChange(String registration, String name, long groupId, boolean available) {
+        String searchName = Farmer.normalizeSearch(name);
+        List<String> terms = new ArrayList<>(List.of(searchName.split(" ")));
+        terms.add(Farmer.normalizeSearch(registration));
+
+        return new Change<>(registration, farmerSortKey(searchName, registration), terms.toArray(String[]::new),
+                new FarmerSuggestionDTO(registration, name, groupId != 0 ? groupId : null, available));
+    }
+
+    private static Change<FamilyGroupSuggestionDTO> groupChange(long id, String registration, String name) {
+        String searchName = name != null ? Farmer.normalizeSearch(name) : "";
+        List<String> terms = new ArrayList<>(List.of(searchName.split(" ")));
+        if (registration != null) terms.add(Farmer.normalizeSearch(registration));
+        terms.add(Long.toString(id));
+
+        return new Change<>(Long.toString(id), groupSortKey(searchName, id), terms.toArray(String[]::new),
+                new FamilyGroupSuggestionDTO(id, registration, name));
+    }
+
+    // mesma ordem dos índices: nome normalizado e, no empate, matrícula ou id
+    private static String farmerSortKey(String searchName, String registration) {
+        return searchName + '\0' + registration;
+    }
+
+    private static String groupSortKey(String searchName, long id) {
+        return searchName + '\0' + String.format("%019d", id);
+    }
+
+    private static <T> List<Change<T>> matching(List<Change<T>> changes, String[] prefixes, Predicate<T> filter) {
+        List<Change<T>> result = new ArrayList<>();
+        for (Change<T> change : changes) {
+            if (change.matchesAll(prefixes) && filter.test(change.suggestion())) result.add(change);
+        }
+        return result;
+    }
+
+    // entradas do índice e da sobreposição, já ordenadas cada uma, intercaladas até o limite
+    private static <T> void merge(BitSet hits, IntFunction<String> sortKey, IntFunction<T> suggestion,
+                                  List<Change<T>> changes, int limit, List<T> result) {
+        int e = hits.nextSetBit(0);
+        int c = 0;
+        while (result.size() < limit && (e >= 0 || c < changes.size())) {
+            if (c < changes.size() && (e < 0 || changes.get(c).sortKey().compareTo(sortKey.apply(e)) < 0)) {
+                result.add(changes.get(c++).suggestion());
+            } else {
+                result.add(suggestion.apply(e));
+                e = hits.nextSetBit(e + 1);
+            }
+        }
+    }
+
+    // sobrepõe as entradas de keys: as do índice ficam escondidas e as de changes substituem as anteriores
+    private static <T> List<Change<T>> replace(List<Change<T>> current, Set<String> keys, List<Change<T>> changes) {
+        List<Change<T>> result = new ArrayList<>(current.size() + changes.size());
+        for (Change<T> change : current) {
+            if (!keys.contains(change.key())) result.add(change);
+        }
+        result.addAll(changes);
+        result.sort(Comparator.comparing(Change::sortKey));
+        return List.copyOf(result);
+    }
+
+    private static <T> Set<T> drain(Set<T> pending) {
+        Set<T> drained = new HashSet<>();
+        for (Iterator<T> it = pending.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    private static String[] prefixes(String query) {
+        String normalized = Farmer.normalizeSearch(query);
+        return (normalized == null || normalized.isEmpty()) ? new String[0] : normalized.split(" ");
+    }
+
+    private static final class PendingChanges {
+        private final Set<String> farmers = new HashSet<>();
+        private final Set<Long> groups = new HashSet<>();
+    }
+
+    private record FarmerRow(String registrationNumber, String name, String searchName, long groupId, boolean active) {}
+
+    private record GroupRow(long id, String principalRegistration, String principalName, String searchName) {}
+
+    // entrada relida depois da última montagem; key é a matrícula ou o id do grupo
+    private record Change<T>(String key, String sortKey, String[] terms, T suggestion) {
+
+        boolean matchesAll(String[] prefixes) {
+            for (String prefix : prefixes) {
+                boolean found = false;
+                for (String term : terms) {
+                    if (term.startsWith(prefix)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) return false;
+            }
+            return true;
+        }
+    }
+
+    /*
+     * groupIds: 0 para produtor sem grupo. hidden marca as entradas do índice substituídas ou
+     * apagadas depois da montagem; changes são as versões atuais, em ordem de sortKey
+     */
+    private record FarmerEntries(PrefixIndex index, String[] registrations, String[] names, long[] groupIds,
+                                 BitSet available, String[] sortedRegistrations, int[] registrationEntries,
+                                 BitSet hidden, List<Change<FarmerSuggestionDTO>> changes) {
+
+        static final FarmerEntries EMPTY = new FarmerEntries(new PrefixIndex.Builder().build(0),
+                new String[0], new String[0], new long[0], new BitSet(), new String[0], new int[0],
+                new BitSet(), List.of());
+
+        int entryOf(String registration) {
+            int i = Arrays.binarySearch(sortedRegistrations, registration);
+            return i >= 0 ? registrationEntries[i] : -1;
+        }
+
+        long groupOf(String registration) {
+            for (Change<FarmerSuggestionDTO> change : changes) {
+                if (change.key().equals(registration)) {
+                    Long groupId = change.suggestion().familyGroupId();
+                    return groupId != null ? groupId : 0;
+                }
+            }
+            int e = entryOf(registration);
+            return e >= 0 && !hidden.get(e) ? groupIds[e] : 0;
+        }
+
+        String sortKey(int e) {
+            return farmerSortKey(Farmer.normalizeSearch(names[e]), registrations[e]);
+        }
+
+        FarmerSuggestionDTO suggestion(int e) {
+            return new FarmerSuggestionDTO(registrations[e], names[e], groupIds[e] != 0 ? groupIds[e] : null, available.get(e));
+        }
+
+        FarmerEntries with(Set<String> keys, List<Change<FarmerSuggestionDTO>> newChanges) {
+            BitSet newHidden = (BitSet) hidden.clone();
+            for (String key : keys) {
+                int e = entryOf(key);
+                if (e >= 0) newHidden.set(e);
+            }
+            return new FarmerEntries(index, registrations, names, groupIds, available, sortedRegistrations,
+                    registrationEntries, newHidden, replace(changes, keys, newChanges));
+        }
+    }
+
+    private record GroupEntries(PrefixIndex index, long[] ids, String[] registrations, String[] names,
+                                long[] sortedIds, int[] idEntries,
+                                BitSet hidden, List<Change<FamilyGroupSuggestionDTO>> changes) {
+
+        static final GroupEntries EMPTY = new GroupEntries(new PrefixIndex.Builder().build(0),
+                new long[0], new String[0], new String[0], new long[0], new int[0], new BitSet(), List.of());
+
+        String sortKey(int e) {
+            return groupSortKey(names[e] != null ? Farmer.normalizeSearch(names[e]) : "", ids[e]);
+        }
+
+        FamilyGroupSuggestionDTO suggestion(int e) {
+            return new FamilyGroupSuggestionDTO(ids[e], registrations[e], names[e]);
+        }
+
+        GroupEntries with(Set<String> keys, List<Change<FamilyGroupSuggestionDTO>> newChanges) {
+            BitSet newHidden = (BitSet) hidden.clone();
+            for (String key : keys) {
+                int i = Arrays.binarySearch(sortedIds, Long.parseLong(key));
+                if (i >= 0) newHidden.set(idEntries[i]);
+            }
+            return new GroupEntries(index, ids, registrations, names, sortedIds, idEntries,
+                    newHidden, replace(changes, keys, newChanges));
+        }
+    }
+}
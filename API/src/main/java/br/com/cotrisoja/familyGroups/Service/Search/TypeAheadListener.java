@@ -0,0 +1,38 @@
+package br.com.cotrisoja.familyGroups.Service.Search;
+
+import br.com.cotrisoja.familyGroups.Entity.FamilyGroup;
+import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+/**
+ * Listener JPA de Farmer e FamilyGroup: a entrada alterada é relida pelo índice de busca depois
+ * do commit. Instanciado pelo Hibernate via Spring; fora do contexto completo
+ * da aplicação (testes de repositório) o índice não existe e nada é feito.
+ */
+public class TypeAheadListener {
+
+    private final ObjectProvider<TypeAheadIndex> typeAheadIndex;
+
+    public TypeAheadListener(ObjectProvider<TypeAheadIndex> typeAheadIndex) {
+        this.typeAheadIndex = typeAheadIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        TypeAheadIndex index = typeAheadIndex.getIfAvailable();
+        if (index == null) return;
+
+        if (entity instanceof Farmer farmer) {
+            index.changedAfterCommit(List.of(farmer.getRegistrationNumber()), List.of());
+        } else if (entity instanceof FamilyGroup group) {
+            index.changedAfterCommit(List.of(), List.of(group.getId()));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package br.com.cotrisoja.familyGroups.Service;
+
+import br.com.cotrisoja.familyGroups.Entity.User;
+import br.com.cotrisoja.familyGroups.Repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens emitidos antes da última alteração do usuário deixam de valer, já que carregam os
+ * papéis e o nome daquele momento. O instante fica gravado em users.tokens_valid_after e é
+ * mantido também em memória, para que a verificação de cada requisição não vá ao banco.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private final UserRepository userRepository;
+
+    private final Map<Long, Instant> validAfter = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        userRepository.findByTokensValidAfterIsNotNull()
+                .forEach(user -> validAfter.put(user.getId(), user.getTokensValidAfter()));
+    }
+
+    // o iat do token tem precisão de segundos: um login logo após a alteração continua valendo
+    public void revoke(User user) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        user.setTokensValidAfter(now);
+        validAfter.put(user.getId(), now);
+    }
+
+    public boolean isRevoked(Long userId, Instant issuedAt) {
+        Instant after = validAfter.get(userId);
+        return after != null && issuedAt.isBefore(after);
+    }
+}
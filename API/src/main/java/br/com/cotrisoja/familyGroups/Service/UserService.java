@@ -18,6 +18,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final BranchRepository branchRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationService tokenRevocationService;
 
     public List<User> findAll() {
         return userRepository.findAll();
@@ -57,6 +58,9 @@ public class UserService {
 
         user.setRoles(userRequestDTO.roles());
 
+        // os tokens atuais carregam o nome e os papéis antigos
+        tokenRevocationService.revoke(user);
+
         return userRepository.save(user);
     }
 }
@@ -0,0 +1,132 @@
+package br.com.cotrisoja.familyGroups.Repository;
+
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupSummaryDTO;
+import br.com.cotrisoja.familyGroups.DTO.Page.CursorPageDTO;
+import br.com.cotrisoja.familyGroups.DTO.Page.ScrollCursor;
+import br.com.cotrisoja.familyGroups.Entity.FamilyGroup;
+import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+import br.com.cotrisoja.familyGroups.Repository.Spec.FamilyGroupSpecifications;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// listagem resumida de grupos: o mesmo filtro da listagem completa, numa consulta por página
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class FamilyGroupSummaryQueryTests {
+
+    private static final Set<String> SORTABLE = Set.of("id");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private FamilyGroupRepository familyGroupRepository;
+
+    private final List<Long> groupIds = new ArrayList<>();
+
+    // 25 grupos; os principais pares se chamam "João Souza N", os ímpares "Maria Lima N"
+    @BeforeEach
+    void seed() {
+        for (int i = 0; i < 25; i++) {
+            Farmer principal = new Farmer();
+            principal.setRegistrationNumber("M" + (900 + i));
+            principal.setName((i % 2 == 0 ? "João Souza " : "Maria Lima ") + i);
+            principal.setStatus(StatusEnum.ACTIVE);
+            entityManager.persist(principal);
+
+            FamilyGroup group = new FamilyGroup();
+            group.setPrincipal(principal);
+            group.setMemberCount(1);
+            groupIds.add(entityManager.persist(group).getId());
+
+            principal.setFamilyGroup(group);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void nameTermsIgnoreAccentsAndOrder() {
+        List<String> names = summaries("souza joao").stream().map(FamilyGroupSummaryDTO::principalName).toList();
+
+        assertThat(names).hasSize(13).allMatch(name -> name.startsWith("João Souza "));
+    }
+
+    @Test
+    void numericValueMatchesTheGroupIdExactly() {
+        Long id = groupIds.get(3);
+
+        assertThat(summaries(String.valueOf(id))).extracting(FamilyGroupSummaryDTO::id).containsExactly(id);
+        // a matrícula continua sendo busca por trecho
+        assertThat(summaries("M91")).hasSize(10);
+    }
+
+    @Test
+    void pageAndCountUseTheSameFilter() {
+        Specification<FamilyGroup> spec = FamilyGroupSpecifications.matchesValue("maria");
+        Page<FamilyGroupSummaryDTO> page = familyGroupRepository.findSummaries(spec, PageRequest.of(1, 5, Sort.by("id")));
+
+        List<Long> maria = IntStream.range(0, groupIds.size()).filter(i -> i % 2 == 1).mapToObj(groupIds::get).toList();
+
+        assertThat(page.getTotalElements()).isEqualTo(maria.size()).isEqualTo(familyGroupRepository.count(spec));
+        assertThat(page.getContent()).extracting(FamilyGroupSummaryDTO::id).containsExactlyElementsOf(maria.subList(5, 10));
+    }
+
+    @Test
+    void cursorPagesWalkTheListInBothDirections() {
+        assertThat(walk(Sort.by("id"))).containsExactlyElementsOf(groupIds);
+        assertThat(walk(Sort.by(Sort.Direction.DESC, "id")))
+                .containsExactlyElementsOf(groupIds.stream().sorted(Comparator.reverseOrder()).toList());
+    }
+
+    private List<FamilyGroupSummaryDTO> summaries(String value) {
+        return familyGroupRepository.findSummaries(FamilyGroupSpecifications.matchesValue(value), PageRequest.of(0, 50))
+                .getContent();
+    }
+
+    // cada página é uma única consulta, com ou sem cursor
+    private List<Long> walk(Sort sort) {
+        Specification<FamilyGroup> spec = FamilyGroupSpecifications.matchesValue("");
+        ScrollCursor cursor = ScrollCursor.parse("", sort, Sort.by("id"), SORTABLE);
+
+        List<Long> ids = new ArrayList<>();
+        while (cursor != null) {
+            entityManager.clear();
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            CursorPageDTO<FamilyGroupSummaryDTO> page = CursorPageDTO.of(
+                    familyGroupRepository.scrollSummaries(spec, cursor.sort(), 7, cursor.position()),
+                    cursor, Function.identity(), null);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+            page.content().forEach(summary -> ids.add(summary.id()));
+            cursor = page.next() == null ? null : ScrollCursor.parse(page.next(), Sort.unsorted(), Sort.unsorted(), SORTABLE);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,178 @@
+package br.com.cotrisoja.familyGroups.Repository;
+
+import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerResponseCompleteDTO;
+import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerResponseDTO;
+import br.com.cotrisoja.familyGroups.DTO.Page.CursorPageDTO;
+import br.com.cotrisoja.familyGroups.DTO.Page.ScrollCursor;
+import br.com.cotrisoja.familyGroups.Repository.Spec.FarmerSpecifications;
+import br.com.cotrisoja.familyGroups.Entity.*;
+import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// a quantidade de comandos SQL de uma página de produtores não pode crescer com o tamanho da página
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class FarmerReadQueryTests {
+
+    private static final int FARMERS = 60;
+    private static final int GROUP_SIZE = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private FarmerRepository farmerRepository;
+
+    private Type type;
+
+    @BeforeEach
+    void seed() {
+        type = new Type();
+        type.setId(2);
+        type.setDescription("Pessoa Física Terceiro");
+        entityManager.persist(type);
+
+        AssetType[] assetTypes = new AssetType[4];
+        for (int i = 0; i < assetTypes.length; i++) {
+            assetTypes[i] = entityManager.persist(new AssetType((long) i + 1, "Tipo " + i));
+        }
+
+        Branch[] branches = new Branch[3];
+        User[] technicians = new User[3];
+        for (int i = 0; i < branches.length; i++) {
+            branches[i] = entityManager.persist(new Branch("Carteira " + i));
+
+            User technician = new User();
+            technician.setUsername("tecnico" + i);
+            technician.setName("Técnico " + i);
+            technician.setPassword("x");
+            technician.setRoles(Set.of("ROLE_TECHNICIAN"));
+            technician.setBranch(branches[i]);
+            technicians[i] = entityManager.persist(technician);
+        }
+
+        Farmer[] farmers = new Farmer[FARMERS];
+        FamilyGroup group = null;
+        for (int i = 0; i < FARMERS; i++) {
+            Farmer farmer = new Farmer();
+            farmer.setRegistrationNumber(String.format("%04d", i));
+            farmer.setName("Produtor " + i);
+            farmer.setStatus(StatusEnum.ACTIVE);
+            farmer.setType(type);
+            farmer.setBranch(branches[i % branches.length]);
+            farmer.setTechnician(technicians[i % technicians.length]);
+            farmers[i] = entityManager.persist(farmer);
+
+            if (i % GROUP_SIZE == 0) {
+                group = new FamilyGroup();
+                group.setPrincipal(farmer);
+                entityManager.persist(group);
+            } else {
+                farmer.setFamilyGroup(group);
+                group.getMembers().add(farmer);
+            }
+        }
+
+        // dois bens próprios por produtor, o segundo arrendado ao produtor seguinte
+        for (int i = 0; i < FARMERS; i++) {
+            for (long idSap = 1; idSap <= 2; idSap++) {
+                entityManager.persist(Asset.builder()
+                        .idSap(idSap)
+                        .owner(farmers[i])
+                        .description("Bem " + idSap)
+                        .amount(10.0)
+                        .assetType(assetTypes[(int) (i + idSap) % assetTypes.length])
+                        .leasedTo(idSap == 2 ? farmers[(i + 1) % FARMERS] : null)
+                        .build());
+            }
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void completePageStatementsDoNotGrowWithPageSize() {
+        assertFlat(size -> farmerRepository.findAll(PageRequest.of(0, size, Sort.by("registrationNumber"))),
+                FarmerResponseCompleteDTO::fromEntity);
+    }
+
+    @Test
+    void searchPageStatementsDoNotGrowWithPageSize() {
+        assertFlat(size -> farmerRepository.findByValue("produtor", PageRequest.of(0, size, Sort.by("registrationNumber"))),
+                FarmerResponseCompleteDTO::fromEntity);
+    }
+
+    @Test
+    void typePageStatementsDoNotGrowWithPageSize() {
+        assertFlat(size -> farmerRepository.findByType(type, PageRequest.of(0, size, Sort.by("registrationNumber"))),
+                FarmerResponseDTO::fromEntity);
+    }
+
+    @Test
+    void cursorPagesWalkTheWholeListAtConstantCost() {
+        Specification<Farmer> spec = FarmerSpecifications.hasType(type);
+        Set<String> sortable = Set.of("registrationNumber", "name");
+        ScrollCursor cursor = ScrollCursor.parse("", Sort.by("name"), Sort.by("registrationNumber"), sortable);
+
+        List<String> names = new ArrayList<>();
+        List<Long> statements = new ArrayList<>();
+        while (cursor != null) {
+            ScrollCursor current = cursor;
+            List<CursorPageDTO<FarmerResponseDTO>> page = new ArrayList<>();
+            statements.add(statements(() -> {
+                Window<Farmer> window = farmerRepository.scroll(spec, current.sort(), 7, current.position());
+                page.add(CursorPageDTO.of(window, current, FarmerResponseDTO::fromEntity, null));
+            }));
+
+            page.get(0).content().forEach(farmer -> names.add(farmer.name()));
+            String next = page.get(0).next();
+            cursor = next == null ? null : ScrollCursor.parse(next, Sort.unsorted(), Sort.unsorted(), sortable);
+        }
+
+        assertThat(names).hasSize(FARMERS).doesNotHaveDuplicates().isSortedAccordingTo(Comparator.naturalOrder());
+        // a última página é menor e não consulta além dela; as demais custam o mesmo
+        assertThat(statements.subList(1, statements.size() - 1)).containsOnly(statements.get(0));
+    }
+
+    private void assertFlat(IntFunction<Page<Farmer>> page, Function<Farmer, ?> mapper) {
+        long small = statements(() -> page.apply(10).map(mapper).getContent());
+        long large = statements(() -> page.apply(50).map(mapper).getContent());
+
+        assertThat(large).isEqualTo(small);
+        assertThat(large).isLessThanOrEqualTo(8);
+    }
+
+    private long statements(Runnable read) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        read.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,229 @@
+package br.com.cotrisoja.familyGroups.Service;
+
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.MembershipOperationDTO;
+import br.com.cotrisoja.familyGroups.Enum.MembershipOperationEnum;
+import br.com.cotrisoja.familyGroups.Repository.Batch.MembershipBatchRepository;
+import br.com.cotrisoja.familyGroups.Repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// PUT /family-group/members: o lote inteiro aplicado com as regras das operações individuais, ou nada
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:membership-tests;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureMockMvc
+class FamilyGroupMembershipServiceTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FamilyGroupAreaService familyGroupAreaService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoSpyBean
+    private MembershipBatchRepository membershipBatchRepository;
+
+    private long ana;
+    private long bruno;
+    private long davi;
+
+    /*
+     * ana: A1 (principal), A2 e A3. bruno: só B1. davi: só D1. C1 sem grupo.
+     * Bens de cultivo (área total / cultivável): A1 10/4, A3 6/6, B1 20/5
+     */
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("UPDATE farmer SET family_group_id = NULL");
+        jdbcTemplate.update("DELETE FROM assets");
+        jdbcTemplate.update("DELETE FROM family_group_area");
+        jdbcTemplate.update("DELETE FROM family_group");
+        jdbcTemplate.update("DELETE FROM farmer");
+
+        for (String farmer : List.of("A1", "A2", "A3", "B1", "C1", "D1")) {
+            jdbcTemplate.update("""
+                    INSERT INTO farmer (registration_number, name, search_name, status, blocked,
+                                        owned_area, leased_area, version)
+                    VALUES (?, ?, ?, 'ACTIVE', false, 0, 0, 0)
+                    """, farmer, "Produtor " + farmer, "produtor " + farmer.toLowerCase());
+        }
+        ana = group("A1", "A1", "A2", "A3");
+        bruno = group("B1", "B1");
+        davi = group("D1", "D1");
+
+        asset("A1", 10, 4);
+        asset("A3", 6, 6);
+        asset("B1", 20, 5);
+        familyGroupAreaService.rebuild();
+    }
+
+    @Test
+    void mixedBatchAppliesEveryOperation() throws Exception {
+        apply(List.of(
+                operation(MembershipOperationEnum.ADD, ana, "B1"),
+                operation(MembershipOperationEnum.REMOVE, ana, "A2"),
+                operation(MembershipOperationEnum.ADD, ana, "D1"),
+                operation(MembershipOperationEnum.CHANGE_PRINCIPAL, ana, "D1"),
+                operation(MembershipOperationEnum.ADD, ana, "C1")
+        )).andExpect(status().isOk())
+                .andExpect(jsonPath("$.operations").value(5));
+
+        // A2 ganhou um grupo individual novo; o de davi foi apagado quando D1 virou principal de ana
+        Long a2Group = jdbcTemplate.queryForObject(
+                "SELECT id FROM family_group WHERE principal_farmer_id = 'A2'", Long.class);
+        assertThat(groupOf()).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "A1", ana, "A3", ana, "B1", ana, "C1", ana, "D1", ana, "A2", a2Group));
+
+        assertThat(principalAndCount(ana)).isEqualTo(Map.of("principal", "D1", "count", 5));
+        assertThat(principalAndCount(bruno)).isEqualTo(Map.of("principal", "B1", "count", 0));
+        assertThat(principalAndCount(a2Group)).isEqualTo(Map.of("principal", "A2", "count", 1));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM family_group WHERE id = ?", Integer.class, davi)).isZero();
+
+        // só ana continua com bens: os de A1, A3 e B1
+        assertThat(jdbcTemplate.queryForList("SELECT family_group_id FROM family_group_area", Long.class))
+                .containsExactly(ana);
+        Map<String, Object> area = jdbcTemplate.queryForMap(
+                "SELECT total_area, cultivable_area, free_area FROM family_group_area WHERE family_group_id = ?", ana);
+        assertThat(((Number) area.get("total_area")).doubleValue()).isEqualTo(36);
+        assertThat(((Number) area.get("cultivable_area")).doubleValue()).isEqualTo(15);
+        assertThat(((Number) area.get("free_area")).doubleValue()).isEqualTo(15);
+    }
+
+    @Test
+    void oldPrincipalInAnotherGroupIsBroughtBack() throws Exception {
+        // A1 continua principal de ana, mas está como membro no grupo de bruno
+        jdbcTemplate.update("UPDATE farmer SET family_group_id = ? WHERE registration_number = 'A1'", bruno);
+        jdbcTemplate.update("UPDATE family_group SET member_count = 2 WHERE id IN (?, ?)", ana, bruno);
+
+        apply(List.of(operation(MembershipOperationEnum.CHANGE_PRINCIPAL, ana, "A2")))
+                .andExpect(status().isOk());
+
+        assertThat(groupOf()).containsAllEntriesOf(Map.of("A1", ana, "A2", ana, "A3", ana, "B1", bruno));
+        assertThat(principalAndCount(ana)).isEqualTo(Map.of("principal", "A2", "count", 3));
+        assertThat(principalAndCount(bruno)).isEqualTo(Map.of("principal", "B1", "count", 1));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT total_area FROM family_group_area WHERE family_group_id = ?", Double.class, ana)).isEqualTo(16);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT total_area FROM family_group_area WHERE family_group_id = ?", Double.class, bruno)).isEqualTo(20);
+    }
+
+    @Test
+    void staleVersionAnswersConflictAndRollsBackTheBatch() throws Exception {
+        Map<String, Long> groupsBefore = groupOf();
+        Map<String, Object> anaBefore = principalAndCount(ana);
+        List<Long> areasBefore = jdbcTemplate.queryForList(
+                "SELECT family_group_id FROM family_group_area ORDER BY family_group_id", Long.class);
+
+        // outra transação altera ana entre a leitura e a gravação de cada tentativa
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        doAnswer(invocation -> {
+            concurrent.executeWithoutResult(status ->
+                    jdbcTemplate.update("UPDATE family_group SET version = version + 1 WHERE id = ?", ana));
+            return invocation.callRealMethod();
+        }).when(membershipBatchRepository).claimGroups(anyMap());
+
+        apply(List.of(
+                operation(MembershipOperationEnum.ADD, ana, "C1"),
+                operation(MembershipOperationEnum.REMOVE, ana, "A2")
+        )).andExpect(status().isConflict())
+                .andExpect(jsonPath("$.entity").value("FamilyGroup"))
+                .andExpect(jsonPath("$.id").value(ana));
+
+        assertThat(groupOf()).isEqualTo(groupsBefore);
+        assertThat(principalAndCount(ana)).isEqualTo(anaBefore);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM family_group WHERE principal_farmer_id = 'A2'", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT family_group_id FROM family_group_area ORDER BY family_group_id", Long.class))
+                .isEqualTo(areasBefore);
+    }
+
+    private ResultActions apply(List<MembershipOperationDTO> operations) throws Exception {
+        String token = jwtService.generateToken(userRepository.findByUsername("admin").orElseThrow());
+        return mockMvc.perform(put("/family-group/members")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(operations)));
+    }
+
+    private static MembershipOperationDTO operation(MembershipOperationEnum type, long groupId, String farmerId) {
+        return new MembershipOperationDTO(type, groupId, farmerId);
+    }
+
+    private long group(String principal, String... members) {
+        jdbcTemplate.update("INSERT INTO family_group (principal_farmer_id, member_count, version) VALUES (?, ?, 0)",
+                principal, members.length);
+        long id = jdbcTemplate.queryForObject(
+                "SELECT id FROM family_group WHERE principal_farmer_id = ?", Long.class, principal);
+        for (String member : members) {
+            jdbcTemplate.update("UPDATE farmer SET family_group_id = ? WHERE registration_number = ?", id, member);
+        }
+        return id;
+    }
+
+    private void asset(String owner, double amount, double cultivable) {
+        jdbcTemplate.update("""
+                INSERT INTO assets (id_sap, farmer_id, description, amount, cultivable, asset_type_id, version)
+                VALUES (1, ?, 'Terra', ?, ?, 1, 0)
+                """, owner, amount, cultivable);
+    }
+
+    private Map<String, Long> groupOf() {
+        Map<String, Long> groups = new HashMap<>();
+        jdbcTemplate.query("SELECT registration_number, family_group_id FROM farmer", rs -> {
+            groups.put(rs.getString("registration_number"), rs.getLong("family_group_id"));
+        });
+        return groups;
+    }
+
+    private Map<String, Object> principalAndCount(long groupId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT principal_farmer_id, member_count FROM family_group WHERE id = ?",
+                (rs, i) -> Map.of("principal", rs.getString(1), "count", rs.getInt(2)),
+                groupId);
+    }
+}
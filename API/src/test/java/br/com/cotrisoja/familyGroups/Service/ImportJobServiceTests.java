@@ -0,0 +1,301 @@
+package br.com.cotrisoja.familyGroups.Service;
+
+import br.com.cotrisoja.familyGroups.Entity.ImportJob;
+import br.com.cotrisoja.familyGroups.Enum.ImportJobStatusEnum;
+import br.com.cotrisoja.familyGroups.Exception.BadRequestException;
+import br.com.cotrisoja.familyGroups.Repository.Batch.ImportBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+// importação do data.csv em blocos de 2 linhas: falha no meio, retomada pelo mesmo arquivo e
+// o resultado final igual ao do processamento linha a linha original
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:import-job-tests;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "import.chunk-size=2"
+})
+class ImportJobServiceTests {
+
+    /*
+     * Blocos: [100, 101] [200, 102] [300, 102] [103, 104] [105, 200].
+     * 102 aparece em dois grupos (a última linha decide), 103 aponta para um principal que não
+     * existe (ignorada), 104 para um produtor que não é principal (falha) e 200 se repete.
+     * Áreas por linha: canola, trigo e soja
+     */
+    private static final String DATA_CSV = """
+            matricula;nome;situacao;principal;x;tecnico;propria;arrendada;canola;trigo;silagem;milho;feijao;soja;carteira
+            100;Ana;Normal;100;;SEM TECNICO;10;0;1;2;0;0;0;3;Matriz
+            101;Bruno;Normal;100;;SEM TECNICO;5;0;1;0;0;0;0;5;Matriz
+            200;Carla;Normal;200;;SEM TECNICO;8;0;0;4;0;0;0;0;Filial
+            102;Davi;Normal;200;;SEM TECNICO;3;0;0;0;0;0;0;2;Matriz
+            300;Eva;Falecido;300;;SEM TECNICO;7;0;0;0;0;0;0;0;Filial
+            102;Davi;Normal;100;;SEM TECNICO;3;0;3;0;0;0;0;0;Matriz
+            103;Fabio;Normal;999;;SEM TECNICO;1;0;9;9;0;0;0;9;Matriz
+            104;Gil;Normal;101;;SEM TECNICO;1;0;9;9;0;0;0;9;Matriz
+            105;Hugo;Normal;300;;SEM TECNICO;2;0;0;7;0;0;0;0;Filial
+            200;Carla Duplicada;Normal;200;;SEM TECNICO;8;0;0;1;0;0;0;0;Filial
+            """;
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private ImportBatchRepository importBatchRepository;
+
+    @MockitoSpyBean
+    private FamilyGroupAreaService familyGroupAreaService;
+
+    @BeforeEach
+    void clean() {
+        jdbcTemplate.update("UPDATE farmer SET family_group_id = NULL");
+        jdbcTemplate.update("DELETE FROM family_group_area");
+        jdbcTemplate.update("DELETE FROM family_group");
+        jdbcTemplate.update("DELETE FROM farmer");
+        jdbcTemplate.update("DELETE FROM import_jobs");
+    }
+
+    @Test
+    void importMatchesRowByRowResult() throws Exception {
+        ImportJob job = importAndWait();
+
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatusEnum.COMPLETED);
+        assertThat(job.getRowsFailed()).isEqualTo(1);
+        assertImported();
+    }
+
+    @Test
+    void failedChunkKeepsEarlierChunksAndResumeFromCheckpoint() throws Exception {
+        // o quarto bloco da primeira passada perde a conexão
+        AtomicInteger chunks = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (chunks.incrementAndGet() == 4) {
+                throw new DataAccessResourceFailureException("conexão perdida");
+            }
+            return invocation.callRealMethod();
+        }).when(importBatchRepository).insertFarmers(anyList());
+
+        ImportJob failed = importAndWait();
+
+        assertThat(failed.getStatus()).isEqualTo(ImportJobStatusEnum.FAILED);
+        assertThat(failed.getCheckpointPass()).isEqualTo(1);
+        assertThat(failed.getCheckpointRow()).isEqualTo(6);
+        assertThat(registrations()).containsExactlyInAnyOrder("100", "101", "200", "102", "300");
+        assertThat(groupIdsByPrincipal()).containsOnlyKeys("100", "200", "300");
+
+        ImportJob resumed = importAndWait();
+
+        assertThat(resumed.getId()).isEqualTo(failed.getId());
+        assertThat(resumed.getStatus()).isEqualTo(ImportJobStatusEnum.COMPLETED);
+        assertImported();
+    }
+
+    @Test
+    void failureInSecondPassIsRedoneWithoutDoublingAreas() throws Exception {
+        // as áreas já somadas são desfeitas junto com o resto da passada
+        doThrow(new DataAccessResourceFailureException("conexão perdida"))
+                .doCallRealMethod()
+                .when(importBatchRepository).moveFarmersToGroups(anyMap());
+
+        ImportJob failed = importAndWait();
+
+        assertThat(failed.getStatus()).isEqualTo(ImportJobStatusEnum.FAILED);
+        assertThat(failed.getCheckpointPass()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(canola_area + wheat_area + soybean_area) FROM family_group", Double.class)).isZero();
+
+        assertThat(importAndWait().getStatus()).isEqualTo(ImportJobStatusEnum.COMPLETED);
+        assertImported();
+    }
+
+    @Test
+    void resumeAfterCommittedAreasDoesNotAddThemAgain() throws Exception {
+        // as duas passadas já foram confirmadas; só o recálculo das áreas pré-calculadas falha
+        doThrow(new DataAccessResourceFailureException("conexão perdida"))
+                .doCallRealMethod()
+                .when(familyGroupAreaService).rebuild();
+
+        ImportJob failed = importAndWait();
+
+        assertThat(failed.getStatus()).isEqualTo(ImportJobStatusEnum.FAILED);
+        assertThat(failed.getCheckpointPass()).isEqualTo(2);
+
+        assertThat(importAndWait().getStatus()).isEqualTo(ImportJobStatusEnum.COMPLETED);
+        assertImported();
+    }
+
+    @Test
+    void simultaneousUploadsOfTheSameFileRunOnce() throws Exception {
+        CountDownLatch submitted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            submitted.await(30, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(importBatchRepository).insertFarmers(anyList());
+
+        assertThat(submitConcurrently()).isEqualTo(1);
+        submitted.countDown();
+
+        assertThat(waitForLastJob().getStatus()).isEqualTo(ImportJobStatusEnum.COMPLETED);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM import_jobs", Integer.class)).isEqualTo(1);
+        assertImported();
+    }
+
+    @Test
+    void simultaneousResumesOfAFailedFileRunOnce() throws Exception {
+        // falha no primeiro bloco; na retomada, o bloco espera os dois envios terminarem
+        CountDownLatch submitted = new CountDownLatch(1);
+        AtomicInteger chunks = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (chunks.incrementAndGet() == 1) {
+                throw new DataAccessResourceFailureException("conexão perdida");
+            }
+            submitted.await(30, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(importBatchRepository).insertFarmers(anyList());
+
+        assertThat(importAndWait().getStatus()).isEqualTo(ImportJobStatusEnum.FAILED);
+
+        assertThat(submitConcurrently()).isEqualTo(1);
+        submitted.countDown();
+
+        assertThat(waitForLastJob().getStatus()).isEqualTo(ImportJobStatusEnum.COMPLETED);
+        assertImported();
+    }
+
+    // dois envios do data.csv ao mesmo tempo; devolve quantos foram aceitos
+    private int submitConcurrently() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Boolean>> results = executor.invokeAll(List.of(
+                    () -> submitAfter(barrier), () -> submitAfter(barrier)));
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) accepted++;
+            }
+            return accepted;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private boolean submitAfter(CyclicBarrier barrier) throws Exception {
+        barrier.await(30, TimeUnit.SECONDS);
+        try {
+            importJobService.submit(dataCsv());
+            return true;
+        } catch (BadRequestException e) {
+            return false;
+        }
+    }
+
+    private void assertImported() {
+        Map<String, Long> groups = groupIdsByPrincipal();
+        assertThat(groups).containsOnlyKeys("100", "200", "300");
+        Long ana = groups.get("100");
+        Long carla = groups.get("200");
+        Long eva = groups.get("300");
+
+        Map<String, Long> groupOf = new HashMap<>();
+        jdbcTemplate.query("SELECT registration_number, family_group_id FROM farmer", rs -> {
+            long group = rs.getLong("family_group_id");
+            Long groupId = rs.wasNull() ? null : group;
+            groupOf.put(rs.getString("registration_number"), groupId);
+        });
+        Map<String, Long> expected = new HashMap<>();
+        expected.put("100", ana);
+        expected.put("101", ana);
+        expected.put("102", ana);
+        expected.put("200", carla);
+        expected.put("300", eva);
+        expected.put("105", eva);
+        expected.put("103", null);
+        expected.put("104", null);
+        assertThat(groupOf).isEqualTo(expected);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT name FROM farmer WHERE registration_number = '200'", String.class)).isEqualTo("Carla");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT status FROM farmer WHERE registration_number = '300'", String.class)).isEqualTo("DECEASED");
+
+        assertGroup(ana, 3, 5, 2, 8);
+        assertGroup(carla, 1, 0, 5, 2);
+        assertGroup(eva, 2, 0, 7, 0);
+    }
+
+    private void assertGroup(Long id, int members, double canola, double wheat, double soybean) {
+        Map<String, Object> group = jdbcTemplate.queryForMap(
+                "SELECT member_count, canola_area, wheat_area, soybean_area FROM family_group WHERE id = ?", id);
+
+        assertThat(((Number) group.get("member_count")).intValue()).isEqualTo(members);
+        assertThat(((Number) group.get("canola_area")).doubleValue()).isEqualTo(canola);
+        assertThat(((Number) group.get("wheat_area")).doubleValue()).isEqualTo(wheat);
+        assertThat(((Number) group.get("soybean_area")).doubleValue()).isEqualTo(soybean);
+    }
+
+    private Map<String, Long> groupIdsByPrincipal() {
+        Map<String, Long> groups = new HashMap<>();
+        jdbcTemplate.query("SELECT id, principal_farmer_id FROM family_group",
+                rs -> {
+                    groups.put(rs.getString("principal_farmer_id"), rs.getLong("id"));
+                });
+        return groups;
+    }
+
+    private List<String> registrations() {
+        return jdbcTemplate.queryForList("SELECT registration_number FROM farmer", String.class);
+    }
+
+    private ImportJob importAndWait() throws Exception {
+        return waitFor(importJobService.submit(dataCsv()).getId());
+    }
+
+    private ImportJob waitForLastJob() throws Exception {
+        return waitFor(jdbcTemplate.queryForObject("SELECT MAX(id) FROM import_jobs", Long.class));
+    }
+
+    private static MockMultipartFile dataCsv() {
+        return new MockMultipartFile("file", "data.csv", "text/csv", DATA_CSV.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ImportJob waitFor(Long id) throws Exception {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            ImportJob job = importJobService.findById(id).orElseThrow();
+            if (job.getStatus() == ImportJobStatusEnum.COMPLETED || job.getStatus() == ImportJobStatusEnum.FAILED) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Importação " + id + " não terminou");
+    }
+}
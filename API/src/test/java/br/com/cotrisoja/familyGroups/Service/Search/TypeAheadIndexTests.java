@@ -0,0 +1,160 @@
+package br.com.cotrisoja.familyGroups.Service.Search;
+
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.FamilyGroupSuggestionDTO;
+import br.com.cotrisoja.familyGroups.DTO.FamilyGroup.MembershipOperationDTO;
+import br.com.cotrisoja.familyGroups.DTO.Farmer.FarmerSuggestionDTO;
+import br.com.cotrisoja.familyGroups.Entity.Farmer;
+import br.com.cotrisoja.familyGroups.Enum.MembershipOperationEnum;
+import br.com.cotrisoja.familyGroups.Enum.StatusEnum;
+import br.com.cotrisoja.familyGroups.Repository.Batch.FarmerSearchRepository;
+import br.com.cotrisoja.familyGroups.Repository.FarmerRepository;
+import br.com.cotrisoja.familyGroups.Service.FamilyGroupMembershipService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// alterações de produtores e grupos entram no índice sem reler as tabelas inteiras
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:type-ahead-tests;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class TypeAheadIndexTests {
+
+    @Autowired
+    private TypeAheadIndex typeAheadIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FarmerRepository farmerRepository;
+
+    @Autowired
+    private FamilyGroupMembershipService familyGroupMembershipService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoSpyBean
+    private FarmerSearchRepository farmerSearchRepository;
+
+    private long souza;
+
+    // Ana Souza é principal do grupo com Bruno Souza; Carlos Lima não tem grupo
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("UPDATE farmer SET family_group_id = NULL");
+        jdbcTemplate.update("DELETE FROM family_group_area");
+        jdbcTemplate.update("DELETE FROM family_group");
+        jdbcTemplate.update("DELETE FROM farmer");
+
+        farmer("A1", "Ana Souza");
+        farmer("A2", "Bruno Souza");
+        farmer("C1", "Carlos Lima");
+        jdbcTemplate.update("INSERT INTO family_group (principal_farmer_id, member_count, version) VALUES ('A1', 2, 0)");
+        souza = jdbcTemplate.queryForObject("SELECT id FROM family_group WHERE principal_farmer_id = 'A1'", Long.class);
+        jdbcTemplate.update("UPDATE farmer SET family_group_id = ? WHERE registration_number IN ('A1', 'A2')", souza);
+
+        typeAheadIndex.rebuild();
+        clearInvocations(farmerSearchRepository);
+    }
+
+    @Test
+    void editedFarmerIsFoundByItsNewName() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Farmer carlos = farmerRepository.findById("C1").orElseThrow();
+            carlos.setName("Carlos Abreu");
+        });
+
+        assertThat(eventually(() -> typeAheadIndex.suggestFarmers("abreu", false, 10)))
+                .extracting(FarmerSuggestionDTO::registrationNumber).containsExactly("C1");
+        assertThat(typeAheadIndex.suggestFarmers("lima", false, 10)).isEmpty();
+        // a versão nova fica na ordem alfabética, junto com as do índice
+        assertThat(typeAheadIndex.suggestFarmers("a", false, 10))
+                .extracting(FarmerSuggestionDTO::name).containsExactly("Ana Souza", "Bruno Souza", "Carlos Abreu");
+        assertNoFullReload();
+    }
+
+    @Test
+    void membershipBatchUpdatesGroupsAndAvailability() {
+        assertThat(typeAheadIndex.suggestFarmers("souza", true, 10)).isEmpty();
+
+        familyGroupMembershipService.apply(List.of(
+                new MembershipOperationDTO(MembershipOperationEnum.REMOVE, souza, "A2")));
+
+        // os dois ficam sozinhos nos seus grupos, e Bruno ganha um grupo novo
+        List<FarmerSuggestionDTO> available = eventually(() -> typeAheadIndex.suggestFarmers("souza", true, 10));
+        assertThat(available).extracting(FarmerSuggestionDTO::registrationNumber).containsExactly("A1", "A2");
+        Long bruno = available.get(1).familyGroupId();
+        assertThat(bruno).isNotEqualTo(souza);
+
+        assertThat(typeAheadIndex.suggestFamilyGroups("bruno", 10))
+                .extracting(FamilyGroupSuggestionDTO::id).containsExactly(bruno);
+        assertThat(typeAheadIndex.suggestFamilyGroups(String.valueOf(souza), 10))
+                .extracting(FamilyGroupSuggestionDTO::principalRegistrationNumber).containsExactly("A1");
+        assertNoFullReload();
+    }
+
+    @Test
+    void deletedGroupLeavesTheIndex() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Farmer carlos = farmerRepository.findById("C1").orElseThrow();
+            carlos.setStatus(StatusEnum.DECEASED);
+        });
+        jdbcTemplate.update("UPDATE farmer SET family_group_id = NULL WHERE family_group_id = ?", souza);
+        jdbcTemplate.update("DELETE FROM family_group WHERE id = ?", souza);
+        typeAheadIndex.changedAfterCommit(List.of("A1", "A2"), List.of(souza));
+
+        assertThat(eventually(() -> typeAheadIndex.suggestFarmers("souza", true, 10))).hasSize(2);
+        assertThat(typeAheadIndex.suggestFamilyGroups("ana", 10)).isEmpty();
+        assertThat(typeAheadIndex.suggestFarmers("carlos", false, 10))
+                .extracting(FarmerSuggestionDTO::available).containsExactly(false);
+        assertNoFullReload();
+    }
+
+    private void farmer(String registration, String name) {
+        jdbcTemplate.update("""
+                INSERT INTO farmer (registration_number, name, search_name, status, blocked, owned_area, leased_area, version)
+                VALUES (?, ?, ?, 'ACTIVE', false, 0, 0, 0)
+                """, registration, name, Farmer.normalizeSearch(name));
+    }
+
+    private void assertNoFullReload() {
+        verify(farmerSearchRepository, never()).forEachFarmer(any(RowCallbackHandler.class));
+        verify(farmerSearchRepository, never()).forEachFamilyGroup(any(RowCallbackHandler.class));
+    }
+
+    // a sobreposição é atualizada no executor do índice, depois do commit
+    private static <T> List<T> eventually(Supplier<List<T>> read) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<T> result = read.get();
+        while (result.isEmpty() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            result = read.get();
+        }
+        return result;
+    }
+}
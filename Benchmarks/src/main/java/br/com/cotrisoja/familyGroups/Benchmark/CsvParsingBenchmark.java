@@ -0,0 +1,84 @@
+package br.com.cotrisoja.familyGroups.Benchmark;
+
+import br.com.cotrisoja.familyGroups.Service.Import.AssetDataRow;
+import br.com.cotrisoja.familyGroups.Service.Import.CsvReader;
+import br.com.cotrisoja.familyGroups.Service.Import.FarmerDataRow;
+import br.com.cotrisoja.familyGroups.Service.Import.FarmerUpdateRow;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportSpool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura pura dos arquivos, sem banco: o leitor de CSV e a conversão de cada linha
+ * no registro usado pela importação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvParsingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int rows;
+
+    private ImportSpool farmerData;
+    private ImportSpool farmerUpdates;
+    private ImportSpool assets;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        farmerData = SyntheticCsv.farmerData(rows);
+        farmerUpdates = SyntheticCsv.farmerUpdates(rows);
+        assets = SyntheticCsv.assets(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        farmerData.close();
+        farmerUpdates.close();
+        assets.close();
+    }
+
+    @Benchmark
+    public long readRecords() throws IOException {
+        long fields = 0;
+        try (CsvReader reader = farmerData.open()) {
+            while (reader.next()) {
+                fields += reader.record().size();
+            }
+        }
+        return fields;
+    }
+
+    @Benchmark
+    public void parseFarmerData(Blackhole blackhole) throws IOException {
+        try (CsvReader reader = farmerData.open()) {
+            while (reader.next()) {
+                blackhole.consume(FarmerDataRow.parse(reader.record()));
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseFarmerUpdates(Blackhole blackhole) throws IOException {
+        try (CsvReader reader = farmerUpdates.open()) {
+            while (reader.next()) {
+                blackhole.consume(FarmerUpdateRow.parse(reader.record()));
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseAssets(Blackhole blackhole) throws IOException {
+        try (CsvReader reader = assets.open()) {
+            while (reader.next()) {
+                blackhole.consume(AssetDataRow.parse(reader.record()));
+            }
+        }
+    }
+}
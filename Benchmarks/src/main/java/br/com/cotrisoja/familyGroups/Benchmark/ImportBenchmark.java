@@ -0,0 +1,149 @@
+package br.com.cotrisoja.familyGroups.Benchmark;
+
+import br.com.cotrisoja.familyGroups.FamilyGroupsApplication;
+import br.com.cotrisoja.familyGroups.Service.FileService;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportProgress;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportResult;
+import br.com.cotrisoja.familyGroups.Service.Import.ImportSpool;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importação completa (leitura, resolução e gravação em blocos) contra um H2 em memória,
+ * com a aplicação inteira no ar. Cada medição é uma importação do arquivo inteiro,
+ * sempre a partir do mesmo estado do banco.
+ * <p>
+ * 1M linhas também funciona, mas leva minutos por medição: {@code -p rows=1000000}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImportBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        @Param({"10000", "100000"})
+        int rows;
+
+        ConfigurableApplicationContext context;
+        FileService fileService;
+        JdbcTemplate jdbc;
+
+        ImportSpool farmerData;
+        ImportSpool farmerUpdates;
+        ImportSpool assets;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            // argumentos de linha de comando: precisam vencer o application.properties da API
+            context = new SpringApplicationBuilder(FamilyGroupsApplication.class).run(
+                    "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    "--spring.main.banner-mode=off",
+                    "--server.port=0",
+                    "--logging.level.root=WARN",
+                    "--logging.level.br.com.cotrisoja=WARN"
+            );
+            fileService = context.getBean(FileService.class);
+            jdbc = context.getBean(JdbcTemplate.class);
+
+            farmerData = SyntheticCsv.farmerData(rows);
+            farmerUpdates = SyntheticCsv.farmerUpdates(rows);
+            assets = SyntheticCsv.assets(rows);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws IOException {
+            farmerData.close();
+            farmerUpdates.close();
+            assets.close();
+            context.close();
+        }
+
+        // volta ao estado logo após a inicialização: só o produtor "-1" e os cadastros básicos
+        void clear() {
+            jdbc.update("DELETE FROM assets");
+            jdbc.update("DELETE FROM farmer_fingerprint");
+            jdbc.update("DELETE FROM family_group_area");
+            jdbc.update("UPDATE farmer SET family_group_id = NULL");
+            jdbc.update("DELETE FROM family_group");
+            jdbc.update("DELETE FROM farmer WHERE registration_number <> '-1'");
+        }
+
+        ImportResult importFile(String filename, ImportSpool spool) throws IOException {
+            return fileService.importFile(filename, spool, ImportProgress.NONE);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyDatabase {
+
+        @Setup(Level.Iteration)
+        public void clear(Application application) {
+            application.clear();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LoadedDatabase {
+
+        @Setup(Level.Trial)
+        public void load(Application application) throws IOException {
+            application.clear();
+            application.importFile("data.csv", application.farmerData);
+        }
+
+        // desfaz o que a medição anterior gravou, mantendo os produtores
+        @Setup(Level.Iteration)
+        public void reset(Application application) {
+            application.jdbc.update("DELETE FROM assets");
+            application.jdbc.update("DELETE FROM farmer_fingerprint");
+            application.jdbc.update("UPDATE farmer SET type_id = NULL, status = 'ACTIVE', blocked = FALSE"
+                    + " WHERE registration_number <> '-1'");
+        }
+    }
+
+    // reenvio do mesmo farmer_update.csv: todas as linhas batem com as impressões gravadas
+    @State(Scope.Benchmark)
+    public static class UpdatedDatabase {
+
+        @Setup(Level.Trial)
+        public void load(Application application) throws IOException {
+            application.clear();
+            application.importFile("data.csv", application.farmerData);
+            application.importFile("farmer_update.csv", application.farmerUpdates);
+        }
+    }
+
+    @Benchmark
+    public ImportResult importFarmerData(Application application, EmptyDatabase database) throws IOException {
+        return application.importFile("data.csv", application.farmerData);
+    }
+
+    @Benchmark
+    public ImportResult importFarmerUpdates(Application application, LoadedDatabase database) throws IOException {
+        return application.importFile("farmer_update.csv", application.farmerUpdates);
+    }
+
+    @Benchmark
+    public ImportResult reimportUnchangedFarmerUpdates(Application application, UpdatedDatabase database) throws IOException {
+        return application.importFile("farmer_update.csv", application.farmerUpdates);
+    }
+
+    @Benchmark
+    public ImportResult importAssets(Application application, LoadedDatabase database) throws IOException {
+        return application.importFile("assets.csv", application.assets);
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.cotrisoja.familyGroups.Benchmark;
+
+import br.com.cotrisoja.familyGroups.Service.Import.ImportSpool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Geradores determinísticos dos três arquivos da importação. Os arquivos compartilham o mesmo
+ * espaço de matrículas, então um farmer_update.csv ou assets.csv de N linhas referencia os
+ * produtores de um data.csv de N linhas.
+ */
+public final class SyntheticCsv {
+
+    private static final long SEED = 42L;
+    private static final int FIRST_REGISTRATION = 100_000;
+    private static final int GROUP_SIZE = 4;
+    private static final int BRANCHES = 12;
+    private static final int TECHNICIANS = 30;
+    private static final int ASSET_TYPES = 20;
+
+    private SyntheticCsv() {
+    }
+
+    public static String registration(int index) {
+        return Integer.toString(FIRST_REGISTRATION + index);
+    }
+
+    // matrícula;nome;situação;principal;-;técnico;própria;arrendada;canola;trigo;silagem;milho;feijão;soja;filial
+    public static ImportSpool farmerData(int rows) throws IOException {
+        Random random = new Random(SEED);
+        return spool(rows, (out, i) -> {
+            String registration = registration(i);
+            String principal = registration(i - i % GROUP_SIZE);
+            String status = random.nextInt(50) == 0 ? "Falecido" : "Normal";
+            String technician = random.nextInt(10) == 0 ? "SEM TECNICO" : "TECNICO " + random.nextInt(TECHNICIANS);
+
+            out.append(registration).append(";PRODUTOR ").append(registration).append(';')
+                    .append(status).append(';').append(principal).append(";x;").append(technician);
+            for (int column = 0; column < 8; column++) {
+                out.append(';').append(area(random));
+            }
+            out.append(";FILIAL ").append(Integer.toString(random.nextInt(BRANCHES))).append('\n');
+        });
+    }
+
+    // matrícula;nome;tipo;data de óbito;bloqueado
+    public static ImportSpool farmerUpdates(int rows) throws IOException {
+        Random random = new Random(SEED + 1);
+        return spool(rows, (out, i) -> {
+            String deathDate = random.nextInt(50) == 0
+                    ? String.format("%02d.%02d.%d", 1 + random.nextInt(28), 1 + random.nextInt(12), 2000 + random.nextInt(25))
+                    : "00.00.0000";
+
+            out.append(registration(i)).append(";PRODUTOR;G000").append(Integer.toString(1 + random.nextInt(4)))
+                    .append(';').append(deathDate)
+                    .append(';').append(random.nextInt(20) == 0 ? "1" : "0").append('\n');
+        });
+    }
+
+    // matrícula;idSap;tipo do bem;descrição;categoria;quantidade;endereço;matrícula do arrendador
+    public static ImportSpool assets(int rows) throws IOException {
+        Random random = new Random(SEED + 2);
+        return spool(rows, (out, i) -> {
+            boolean leased = random.nextInt(5) == 0;
+            String lessor = leased && random.nextBoolean() ? registration(random.nextInt(rows)) : "";
+
+            out.append(registration(random.nextInt(rows))).append(';')
+                    .append(Integer.toString(i)).append(';')
+                    .append(Integer.toString(1 + random.nextInt(ASSET_TYPES)))
+                    .append(";BEM ").append(Integer.toString(i)).append(';')
+                    .append(leased ? "2" : "1").append(';')
+                    .append(area(random))
+                    .append(";LINHA ").append(Integer.toString(random.nextInt(200)))
+                    .append(';').append(lessor).append('\n');
+        });
+    }
+
+    // decimal com vírgula, como nas exportações do ERP
+    private static String area(Random random) {
+        return String.format(Locale.ROOT, "%.2f", random.nextDouble() * 200).replace('.', ',');
+    }
+
+    private static ImportSpool spool(int rows, RowWriter writer) throws IOException {
+        Path file = Files.createTempFile("benchmark-", ".csv");
+        try {
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                out.append("cabecalho\n");
+                for (int i = 0; i < rows; i++) {
+                    writer.write(out, i);
+                }
+            }
+            try (InputStream in = Files.newInputStream(file)) {
+                return ImportSpool.copyOf(in);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Writer out, int index) throws IOException;
+    }
+}